@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# End-to-end load test on one box: local Cognito stand-in, seeded database,
+# the service jar and the load generator. Needs a JDK 21, Maven, psql with the
+# libpq environment (PGHOST, PGDATABASE, ...) and SPRING_DATASOURCE_URL /
+# _USERNAME / _PASSWORD pointing at the same scratch database.
+# Every run TRUNCATEs users.
+set -euo pipefail
+cd "$(dirname "$0")"
+HERE=$(pwd)
+ROOT=$(cd ../.. && pwd)
+
+USERS=${USERS:-10000}
+CONCURRENCY=${CONCURRENCY:-"50 200"}
+DURATION=${DURATION:-60s}
+WARMUP=${WARMUP:-10s}
+SCENARIOS=${SCENARIOS:-"login-storm me admin-search role-update"}
+APP_URL=${APP_URL:-http://localhost:8080}
+APP_ARGS=${APP_ARGS:-}
+OUT=${OUT:-$HERE/results}
+mkdir -p "$OUT"
+
+echo "== building"
+(cd "$ROOT" && mvn -B -q -Ploadtest -DskipTests package dependency:build-classpath \
+    -Dmdep.outputFile=target/loadtest.classpath)
+CP="$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$ROOT/target/loadtest.classpath")"
+JAR=$(ls "$ROOT"/target/auth-service-*.jar | grep -v plain | head -1)
+KEY="$ROOT/target/loadtest/signing-key.json"
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null || true' EXIT
+
+echo "== starting local Cognito"
+java -cp "$CP" com.eyepax.authservice.loadtest.LocalCognito --port=9411 --key="$KEY" > "$OUT/cognito.log" 2>&1 &
+pids+=($!)
+
+echo "== starting auth-service"
+# shellcheck disable=SC2086
+java -jar "$JAR" --spring.config.additional-location="file:$HERE/loadtest.properties" $APP_ARGS \
+    > "$OUT/app.log" 2>&1 &
+pids+=($!)
+for _ in $(seq 1 90); do
+    [ "$(curl -s -o /dev/null -w '%{http_code}' "$APP_URL/healthz")" != "000" ] && break
+    sleep 1
+done
+
+# After startup, so Flyway has created the tables
+echo "== seeding $USERS users"
+psql -q -v ON_ERROR_STOP=1 -v users="$USERS" -f seed.sql
+
+for scenario in $SCENARIOS; do
+    for c in $CONCURRENCY; do
+        java -cp "$CP" com.eyepax.authservice.loadtest.LoadTest --url="$APP_URL" --key="$KEY" \
+            --scenario="$scenario" --users="$USERS" --concurrency="$c" --warmup="$WARMUP" \
+            --duration="$DURATION" --out="$OUT/summary.csv" | tee "$OUT/$scenario-$c.txt"
+    done
+done
+
+echo "== summary ($OUT/summary.csv)"
+column -s, -t < "$OUT/summary.csv"
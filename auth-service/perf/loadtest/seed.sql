@@ -0,0 +1,27 @@
+-- Seeds :users load-test users plus one admin. Run against a scratch database
+-- that has been migrated by Flyway, e.g.
+--   psql -v users=10000 -f seed.sql
+-- User n has cognito_sub 'load-user-n' and username 'loaduser<n>', which is
+-- what LoadTest mints tokens for. Every run TRUNCATEs users.
+INSERT INTO roles (name, description) VALUES
+    ('Admin', 'Administrator'),
+    ('Employee', 'Default role for every user'),
+    ('Manager', 'Team manager')
+ON CONFLICT (name) DO NOTHING;
+
+TRUNCATE users CASCADE;
+
+-- The V2 trigger gives every new user the Employee role
+INSERT INTO users (cognito_sub, username, email, display_name)
+SELECT 'load-user-' || g, 'loaduser' || g, 'loaduser' || g || '@example.com', 'Load User ' || g
+FROM generate_series(1, :users) AS g;
+
+INSERT INTO users (cognito_sub, username, email, display_name)
+VALUES ('load-admin', 'load-admin', 'load-admin@example.com', 'Load Admin');
+
+INSERT INTO user_roles (user_id, role_id)
+SELECT u.id, r.id FROM users u, roles r
+WHERE u.cognito_sub = 'load-admin' AND r.name = 'Admin';
+
+ANALYZE users;
+ANALYZE user_roles;
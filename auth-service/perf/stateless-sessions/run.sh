@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# Heap footprint of HTTP sessions under the login-storm scenario: runs the same
+# load against a baseline build (single session-capable filter chain) and the
+# current build (stateless /api chain), then compares live heap and
+# StandardSession instances after a full GC. Same prerequisites as
+# ../loadtest/run.sh, plus git and jcmd. Every run TRUNCATEs users.
+set -euo pipefail
+cd "$(dirname "$0")"
+HERE=$(pwd)
+ROOT=$(cd ../.. && pwd)
+LOADTEST="$ROOT/perf/loadtest"
+
+: "${BASELINE_REF:?BASELINE_REF must name the commit to compare against}"
+USERS=${USERS:-10000}
+CONCURRENCY=${CONCURRENCY:-200}
+DURATION=${DURATION:-120s}
+ANONYMOUS_RATIO=${ANONYMOUS_RATIO:-0.2}
+HEAP=${HEAP:-1g}
+APP_URL=${APP_URL:-http://localhost:8080}
+OUT=${OUT:-$HERE/results}
+mkdir -p "$OUT"
+
+echo "== building current"
+(cd "$ROOT" && mvn -B -q -Ploadtest -DskipTests package dependency:build-classpath \
+    -Dmdep.outputFile=target/loadtest.classpath)
+CP="$ROOT/target/test-classes:$ROOT/target/classes:$(cat "$ROOT/target/loadtest.classpath")"
+CURRENT_JAR=$(ls "$ROOT"/target/auth-service-*.jar | grep -v plain | head -1)
+KEY="$ROOT/target/loadtest/signing-key.json"
+
+echo "== building baseline ($BASELINE_REF)"
+WORKTREE=$(mktemp -d)
+git -C "$ROOT" worktree add -q --detach "$WORKTREE" "$BASELINE_REF"
+MODULE="$WORKTREE/$(git -C "$ROOT" rev-parse --show-prefix)"
+(cd "$MODULE" && mvn -B -q -DskipTests package)
+BASELINE_JAR="$OUT/baseline.jar"
+cp "$(ls "$MODULE"/target/auth-service-*.jar | grep -v plain | head -1)" "$BASELINE_JAR"
+git -C "$ROOT" worktree remove --force "$WORKTREE"
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null || true' EXIT
+
+java -cp "$CP" com.eyepax.authservice.loadtest.LocalCognito --port=9411 --key="$KEY" > "$OUT/cognito.log" 2>&1 &
+pids+=($!)
+
+echo "variant,requests,throughput,p99_ms,sessions,session_bytes,live_heap_bytes" > "$OUT/heap.csv"
+for variant in baseline current; do
+    jar=$CURRENT_JAR
+    [ "$variant" = baseline ] && jar=$BASELINE_JAR
+
+    echo "== $variant"
+    java -Xms"$HEAP" -Xmx"$HEAP" -jar "$jar" \
+        --spring.config.additional-location="file:$LOADTEST/loadtest.properties" > "$OUT/$variant.log" 2>&1 &
+    app=$!
+    pids+=($app)
+    for _ in $(seq 1 90); do
+        [ "$(curl -s -o /dev/null -w '%{http_code}' "$APP_URL/healthz")" != "000" ] && break
+        sleep 1
+    done
+    psql -q -v ON_ERROR_STOP=1 -v users="$USERS" -f "$LOADTEST/seed.sql"
+
+    java -cp "$CP" com.eyepax.authservice.loadtest.LoadTest --url="$APP_URL" --key="$KEY" \
+        --scenario=login-storm --users="$USERS" --concurrency="$CONCURRENCY" --warmup=0s \
+        --duration="$DURATION" --anonymous-ratio="$ANONYMOUS_RATIO" | tee "$OUT/$variant.txt"
+
+    # GC.class_histogram runs a full GC first, so the totals are live objects only
+    jcmd "$app" GC.class_histogram > "$OUT/$variant-histogram.txt"
+    sessions=$(awk '$4 == "org.apache.catalina.session.StandardSession" {print $2}' "$OUT/$variant-histogram.txt")
+    session_bytes=$(awk '$4 == "org.apache.catalina.session.StandardSession" {print $3}' "$OUT/$variant-histogram.txt")
+    live=$(awk '$1 == "Total" {print $3}' "$OUT/$variant-histogram.txt")
+    requests=$(awk '/^requests/ {print $2}' "$OUT/$variant.txt")
+    throughput=$(awk '/^requests/ {gsub(/[(\/s),]/, "", $3); print $3}' "$OUT/$variant.txt")
+    p99=$(awk -F'p99=' '/^latency/ {split($2, a, " "); print a[1]}' "$OUT/$variant.txt")
+    echo "$variant,$requests,$throughput,$p99,${sessions:-0},${session_bytes:-0},$live" >> "$OUT/heap.csv"
+
+    kill "$app"
+    wait "$app" 2>/dev/null || true
+done
+
+echo "== heap after login storm ($OUT/heap.csv)"
+column -s, -t < "$OUT/heap.csv"
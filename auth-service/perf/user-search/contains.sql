@@ -0,0 +1,7 @@
+-- Default search mode: UserQueryRepository.findPageContaining
+\set n random(1, 1000)
+SELECT u.* FROM users u
+WHERE lower(u.username) LIKE '%' || substr(md5(:n::text), 1, 4) || '%'
+   OR lower(u.email) LIKE '%' || substr(md5(:n::text), 1, 4) || '%'
+ORDER BY u.id
+LIMIT 10;
@@ -0,0 +1,26 @@
+#!/usr/bin/env bash
+# Compares admin user search latency (contains vs trigram) at 100k and 1M users.
+# Needs psql and pgbench on PATH and the usual libpq environment (PGHOST,
+# PGDATABASE, ...) pointing at a scratch, fully migrated auth database.
+# Every run TRUNCATEs users.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+SIZES=${SIZES:-"100000 1000000"}
+DURATION=${DURATION:-30}
+CLIENTS=${CLIENTS:-4}
+
+for users in $SIZES; do
+    echo "== seeding $users users"
+    psql -q -v ON_ERROR_STOP=1 -v users="$users" -f seed.sql
+
+    for mode in contains trigram; do
+        echo "== $mode, $users users, ${CLIENTS} clients, ${DURATION}s"
+        pgbench -n -c "$CLIENTS" -j "$CLIENTS" -T "$DURATION" -P 10 -r -f "$mode.sql" \
+            | grep -E 'latency (average|stddev)|tps ='
+    done
+
+    echo "== plans at $users users"
+    psql -q -c "EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE lower(username) LIKE '%a1b2%' OR lower(email) LIKE '%a1b2%' ORDER BY id LIMIT 10"
+    psql -q -c "EXPLAIN (ANALYZE, BUFFERS) SELECT * FROM users WHERE lower(username) LIKE '%a1b2%' OR lower(email) LIKE '%a1b2%' OR lower(username) % 'a1b2' OR lower(email) % 'a1b2' LIMIT 10"
+done
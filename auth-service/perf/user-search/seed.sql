@@ -0,0 +1,13 @@
+-- Seeds :users synthetic users for the search benchmark. Run against a
+-- scratch database that has been migrated by Flyway (V1..V5), e.g.
+--   psql -v users=100000 -f seed.sql
+TRUNCATE users CASCADE;
+
+INSERT INTO users (cognito_sub, username, email, display_name)
+SELECT 'bench-' || g,
+       'user' || g || '.' || substr(md5(g::text), 1, 6),
+       substr(md5(g::text || 'mail'), 1, 10) || '.' || g || '@example.com',
+       'Bench User ' || g
+FROM generate_series(1, :users) AS g;
+
+ANALYZE users;
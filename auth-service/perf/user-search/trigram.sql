@@ -0,0 +1,10 @@
+-- SearchMode.TRIGRAM: UserRepository.searchBySimilarity
+\set n random(1, 1000)
+SELECT u.* FROM users u
+WHERE lower(u.username) LIKE '%' || substr(md5(:n::text), 1, 4) || '%'
+   OR lower(u.email) LIKE '%' || substr(md5(:n::text), 1, 4) || '%'
+   OR lower(u.username) % substr(md5(:n::text), 1, 4)
+   OR lower(u.email) % substr(md5(:n::text), 1, 4)
+ORDER BY GREATEST(similarity(lower(u.username), substr(md5(:n::text), 1, 4)),
+                  similarity(lower(u.email), substr(md5(:n::text), 1, 4))) DESC, u.id
+LIMIT 10;
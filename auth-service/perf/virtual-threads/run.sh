@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Compares throughput and p99 latency of an authenticated endpoint with platform
+# threads vs virtual threads (the vthreads profile), and reports any carrier
+# pinning seen while under load.
+# Needs hey (https://github.com/rakyll/hey) and a JDK on PATH, a reachable auth
+# database configured through the usual SPRING_DATASOURCE_* environment, and a
+# valid bearer token in TOKEN.
+set -euo pipefail
+cd "$(dirname "$0")"
+
+: "${TOKEN:?TOKEN must hold a valid bearer token}"
+URL=${URL:-http://localhost:8080/api/v1/users/me}
+CLIENTS=${CLIENTS:-"1000 2000"}
+DURATION=${DURATION:-60s}
+JAR=${JAR:-$(ls ../../target/auth-service-*.jar | grep -v plain | head -1)}
+OUT=${OUT:-results}
+mkdir -p "$OUT"
+
+wait_for_startup() {
+    for _ in $(seq 1 60); do
+        curl -fs -o /dev/null -H "Authorization: Bearer $TOKEN" "$URL" && return 0
+        sleep 1
+    done
+    echo "service did not come up" >&2
+    return 1
+}
+
+for mode in platform vthreads; do
+    profile=""
+    [ "$mode" = vthreads ] && profile="--spring.profiles.active=vthreads"
+
+    java -Djdk.tracePinnedThreads=short \
+        -XX:StartFlightRecording=filename="$OUT/$mode.jfr",settings=profile \
+        -jar "$JAR" $profile > "$OUT/$mode.log" 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null || true' EXIT
+    wait_for_startup
+
+    # Warm up JIT, connection pool and principal cache before measuring
+    hey -z 15s -c 100 -H "Authorization: Bearer $TOKEN" "$URL" > /dev/null
+
+    for c in $CLIENTS; do
+        echo "== $mode, $c clients, $DURATION"
+        hey -z "$DURATION" -c "$c" -H "Authorization: Bearer $TOKEN" "$URL" \
+            | tee "$OUT/$mode-$c.txt" \
+            | grep -E 'Requests/sec|99% in|Status code|\[[0-9]+\]'
+    done
+
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+
+    if [ "$mode" = vthreads ]; then
+        echo "== pinning"
+        jfr print --events jdk.VirtualThreadPinned "$OUT/$mode.jfr" > "$OUT/pinned.txt" || true
+        echo "jdk.VirtualThreadPinned events: $(grep -c 'jdk.VirtualThreadPinned' "$OUT/pinned.txt" || true)"
+        # tracePinnedThreads prints one stack per pinning site; show where they come from
+        grep -A3 'onPinned\|<== monitors' "$OUT/$mode.log" | grep 'com.eyepax' | sort | uniq -c | sort -rn || true
+    fi
+done
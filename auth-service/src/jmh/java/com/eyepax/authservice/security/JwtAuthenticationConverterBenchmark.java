@@ -0,0 +1,110 @@
+package com.eyepax.authservice.security;
+
+import com.eyepax.authservice.dto.UserSyncDto;
+import com.eyepax.authservice.repository.UserUpsertRepository;
+import com.eyepax.authservice.service.LastLoginWriteBehind;
+import com.eyepax.authservice.service.UserSyncService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link CustomJwtAuthenticationConverter#convert} once
+ * the token is decoded: the steady state where the principal is cached, and
+ * the miss path through {@link UserSyncService#findOrCreate}. The database is
+ * replaced by an in-memory repository, so the miss numbers are the service's
+ * own overhead and exclude the query itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationConverterBenchmark {
+
+    // Far more distinct users than the principal cache holds, so cycling through them always misses
+    private static final int MISS_USERS = 100_000;
+    private static final int CACHE_SIZE = 1_000;
+
+    private CustomJwtAuthenticationConverter converter;
+    private Jwt cachedJwt;
+    private Jwt[] uncachedJwts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, Duration.ofMinutes(5), CACHE_SIZE);
+        UserSyncService userSyncService = new UserSyncService(null, new InMemoryUserUpsertRepository(),
+                principalCache, meterRegistry, 500, 5000);
+        converter = new CustomJwtAuthenticationConverter(userSyncService, principalCache,
+                new LastLoginWriteBehind(null, 500), meterRegistry);
+
+        cachedJwt = jwt("cached-sub");
+        converter.convert(cachedJwt);
+        uncachedJwts = new Jwt[MISS_USERS];
+        for (int i = 0; i < MISS_USERS; i++) {
+            uncachedJwts[i] = jwt("sub-" + i);
+        }
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken cachedPrincipal() {
+        return converter.convert(cachedJwt);
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken uncachedPrincipal() {
+        Jwt jwt = uncachedJwts[next];
+        next = (next + 1) % MISS_USERS;
+        return converter.convert(jwt);
+    }
+
+    private static Jwt jwt(String sub) {
+        Instant now = Instant.now();
+        return Jwt.withTokenValue("token-" + sub)
+                .header("alg", "RS256")
+                .subject(sub)
+                .claim("email", sub + "@example.com")
+                .claim("preferred_username", sub)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .build();
+    }
+
+    /**
+     * Answers every lookup with an existing user, as the database would for
+     * returning users whose cached principal expired.
+     */
+    private static final class InMemoryUserUpsertRepository extends UserUpsertRepository {
+
+        private static final Set<String> ROLES = Set.of("Employee", "USER");
+
+        InMemoryUserUpsertRepository() {
+            super(null);
+        }
+
+        @Override
+        public Optional<ProvisionedUser> findOrCreate(UserSyncDto user, boolean refreshProfile, Instant now) {
+            return Optional.of(new ProvisionedUser((long) user.getSub().hashCode(), user.getUsername(),
+                    user.getEmail(), user.getDisplayName(), false, ROLES, 1L));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.eyepax.authservice.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a bearer token into a {@link Jwt}: full RS256 verification
+ * through {@link JwksJwtDecoder} against a local key, and a hit in
+ * {@link CachingJwtDecoder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtDecodeBenchmark {
+
+    private JwksJwtDecoder verifyingDecoder;
+    private CachingJwtDecoder cachingDecoder;
+    private String token;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        RSAKey key = new RSAKeyGenerator(2048).keyID("bench").generate();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        verifyingDecoder = new JwksJwtDecoder(new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK())), meterRegistry);
+        cachingDecoder = new CachingJwtDecoder(verifyingDecoder, 10_000, meterRegistry);
+        token = sign(key);
+        cachingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt verify() {
+        return verifyingDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt cachedDecode() {
+        return cachingDecoder.decode(token);
+    }
+
+    static String sign(RSAKey key) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("3f1c2a6e-8d4b-4c1e-9b7a-2e5d6f8a9b0c")
+                .issuer("https://cognito-idp.ap-southeast-1.amazonaws.com/ap-southeast-1_bench")
+                .claim("email", "jane.doe@example.com")
+                .claim("preferred_username", "jane.doe")
+                .claim("token_use", "access")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,76 @@
+package com.eyepax.authservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caller-side cost of {@link AuditLogService#record}: building the entry and
+ * handing it to {@link AuditLogWriter}'s queue. The writer thread runs as in
+ * production but its JDBC batches are discarded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogServiceBenchmark {
+
+    private AuditLogWriter auditLogWriter;
+    private AuditLogService auditLogService;
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        auditLogWriter = new AuditLogWriter(new DiscardingJdbcTemplate(), meterRegistry, 10_000, 200,
+                200, AuditLogWriter.OverflowPolicy.SYNC, 20, 30_000, runnable -> new Thread(runnable, "audit-log-writer"));
+        auditLogWriter.start();
+        auditLogService = new AuditLogService(auditLogWriter, meterRegistry);
+        request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.12.34");
+        request.addHeader("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 Chrome/126.0");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        auditLogWriter.stop();
+    }
+
+    @Benchmark
+    public void record() {
+        auditLogService.record(42L, "LOGIN", "User logged in", request);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        auditLogService.record(42L, "LOGIN", "User logged in", request);
+    }
+
+    private static final class DiscardingJdbcTemplate extends JdbcTemplate {
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                ParameterizedPreparedStatementSetter<T> pss) {
+            return new int[0][];
+        }
+    }
+}
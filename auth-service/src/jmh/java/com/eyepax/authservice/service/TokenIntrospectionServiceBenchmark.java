@@ -0,0 +1,139 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.TokenIntrospectionDto;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.model.User;
+import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.security.CachingJwtDecoder;
+import com.eyepax.authservice.security.JwksJwtDecoder;
+import com.eyepax.authservice.security.PrincipalCache;
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.ImmutableJWKSet;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks per second through {@link TokenIntrospectionService}, wired as in
+ * production: RS256 verification by {@link JwksJwtDecoder} behind
+ * {@link CachingJwtDecoder}, and roles from {@link PrincipalCache}. Tokens
+ * are signed once and checked repeatedly, as services re-check the tokens of
+ * their active callers; the database is replaced by an in-memory repository.
+ * {@code JwtDecodeBenchmark.verify} gives the cost of a token seen for the
+ * first time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenIntrospectionServiceBenchmark {
+
+    // Distinct callers, all within the token and principal cache sizes
+    private static final int USERS = 1_000;
+    private static final int BATCH = 100;
+
+    private TokenIntrospectionService service;
+    private String[] tokens;
+    private List<String> batch;
+
+    @Setup
+    public void setUp() throws JOSEException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RSAKey key = new RSAKeyGenerator(2048).keyID("bench").generate();
+        JwksJwtDecoder verifyingDecoder = new JwksJwtDecoder(new ImmutableJWKSet<>(new JWKSet(key.toPublicJWK())),
+                meterRegistry);
+        PrincipalCache principalCache = new PrincipalCache(meterRegistry, Duration.ofMinutes(5), 10_000);
+        service = new TokenIntrospectionService(new CachingJwtDecoder(verifyingDecoder, 50_000, meterRegistry),
+                principalCache, inMemoryUserRepository(), meterRegistry, BATCH);
+
+        tokens = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            tokens[i] = sign(key, "sub-" + i);
+            service.introspect(tokens[i]);
+        }
+        batch = Arrays.asList(tokens).subList(0, BATCH);
+    }
+
+    @Benchmark
+    public TokenIntrospectionDto singleToken() {
+        return service.introspect(tokens[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TokenIntrospectionDto singleToken4Threads() {
+        return service.introspect(tokens[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    // One request of BATCH tokens; multiply ops/s by BATCH for checks per second
+    @Benchmark
+    public List<TokenIntrospectionDto> batchOf100() {
+        return service.introspectAll(batch);
+    }
+
+    private static String sign(RSAKey key, String sub) throws JOSEException {
+        Instant now = Instant.now();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(sub)
+                .issuer("https://cognito-idp.ap-southeast-1.amazonaws.com/ap-southeast-1_bench")
+                .claim("email", sub + "@example.com")
+                .claim("token_use", "access")
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plusSeconds(3600)))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    // Every sub is a provisioned user; introspection only ever looks users up
+    private static UserRepository inMemoryUserRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[] { UserRepository.class }, (proxy, method, args) -> {
+                    if (!method.getName().equals("findOnPrimaryByCognitoSub")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    String sub = (String) args[0];
+                    User user = new User();
+                    user.setId((long) sub.hashCode());
+                    user.setCognitoSub(sub);
+                    user.setVersion(1L);
+                    for (String roleName : List.of("Employee", "USER")) {
+                        Role role = new Role();
+                        role.setName(roleName);
+                        user.getRoles().add(role);
+                    }
+                    return Optional.of(user);
+                });
+    }
+}
@@ -0,0 +1,82 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.model.User;
+import com.eyepax.authservice.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Proxy;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link UserService#getCurrentUser}, i.e. the User to UserDto
+ * mapping behind {@code GET /api/v1/me}, with the repository answered from
+ * memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(42L);
+        user.setCognitoSub("3f1c2a6e-8d4b-4c1e-9b7a-2e5d6f8a9b0c");
+        user.setUsername("jane.doe");
+        user.setEmail("jane.doe@example.com");
+        user.setDisplayName("Jane Doe");
+        user.setStatus("ACTIVE");
+        user.setLastLogin(Instant.now());
+        Set<Role> roles = new HashSet<>();
+        roles.add(role(1L, "Employee"));
+        roles.add(role(2L, "USER"));
+        roles.add(role(3L, "Admin"));
+        user.setRoles(roles);
+
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[] { UserRepository.class },
+                (proxy, method, args) -> {
+                    if (method.getName().equals("findByCognitoSub")) {
+                        return Optional.of(user);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        userService = new UserService(userRepository, null, null, null, null, null, 3, 20);
+        authentication = new TestingAuthenticationToken(user.getCognitoSub(), null);
+    }
+
+    @Benchmark
+    public UserDto getCurrentUser() {
+        return userService.getCurrentUser(authentication);
+    }
+
+    private static Role role(Long id, String name) {
+        Role role = new Role();
+        role.setId(id);
+        role.setName(name);
+        return role;
+    }
+}
@@ -0,0 +1,290 @@
+package com.eyepax.authservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load generator: {@code --concurrency} virtual-thread clients
+ * send requests for one scenario back to back, first for {@code --warmup}
+ * (discarded), then for {@code --duration}. Prints throughput, the status
+ * code distribution and latency percentiles, and optionally appends a CSV
+ * line to {@code --out}.
+ * <p>
+ * Scenarios, against users seeded by {@code perf/loadtest/seed.sql}:
+ * <ul>
+ * <li>{@code login-storm}: {@code POST /api/sync/login}; a share of
+ * {@code --new-user-ratio} logins come from users the service has never
+ * seen, the rest from random seeded users. A share of
+ * {@code --anonymous-ratio} (default 0) are instead {@code GET /api/v1/me}
+ * without a token, as sent by clients probing before sign-in</li>
+ * <li>{@code me}: {@code GET /api/v1/me} from the first {@code --active-users}
+ * seeded users, each reusing its token</li>
+ * <li>{@code admin-search}: {@code GET /api/v1/admin/users} with random
+ * three-digit terms, in {@code --search-mode}</li>
+ * <li>{@code role-update}: {@code PATCH /api/v1/admin/users/{id}/roles}
+ * toggling Manager on random seeded users</li>
+ * </ul>
+ * Tokens are minted before the clock starts, so signing cost on the client
+ * does not show up in the latencies.
+ */
+public final class LoadTest {
+
+    enum Scenario {
+        LOGIN_STORM, ME, ADMIN_SEARCH, ROLE_UPDATE;
+
+        static Scenario of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT).replace('-', '_'));
+        }
+    }
+
+    private static final Duration TOKEN_TTL = Duration.ofHours(2);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final int IO_ERROR = -1;
+
+    private final HttpClient client;
+    private final TokenIssuer issuer;
+    private final String baseUrl;
+    private final Scenario scenario;
+    private final int users;
+    private final int activeUsers;
+    private final double newUserRatio;
+    private final double anonymousRatio;
+    private final String searchMode;
+    private final AtomicReferenceArray<String> userTokens;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private final AtomicLong newUsers = new AtomicLong();
+    private String adminToken;
+    private long[] userIds;
+
+    private LoadTest(HttpClient client, TokenIssuer issuer, Map<String, String> options) {
+        this.client = client;
+        this.issuer = issuer;
+        this.baseUrl = options.getOrDefault("url", "http://localhost:8080");
+        this.scenario = Scenario.of(options.getOrDefault("scenario", "me"));
+        this.users = Integer.parseInt(options.getOrDefault("users", "10000"));
+        this.activeUsers = Math.min(users, Integer.parseInt(options.getOrDefault("active-users", "1000")));
+        this.newUserRatio = Double.parseDouble(options.getOrDefault("new-user-ratio", "0.2"));
+        this.anonymousRatio = Double.parseDouble(options.getOrDefault("anonymous-ratio", "0"));
+        this.searchMode = options.getOrDefault("search-mode", "CONTAINS");
+        this.userTokens = new AtomicReferenceArray<>(users + 1);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Options.parse(args);
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration warmup = Options.duration(options.getOrDefault("warmup", "10s"));
+        Duration duration = Options.duration(options.getOrDefault("duration", "60s"));
+        TokenIssuer issuer = TokenIssuer.load(Path.of(options.getOrDefault("key", Options.DEFAULT_KEY)));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(executor)
+                    .build();
+            LoadTest test = new LoadTest(client, issuer, options);
+            test.prepare();
+            if (!warmup.isZero()) {
+                test.run(executor, concurrency, warmup);
+            }
+            Result result = test.run(executor, concurrency, duration);
+            result.print(test.scenario, concurrency);
+            if (options.containsKey("out")) {
+                result.append(Path.of(options.get("out")), test.scenario, concurrency);
+            }
+        }
+    }
+
+    private void prepare() throws IOException, InterruptedException {
+        adminToken = issuer.mint("load-admin", "load-admin@example.com", "load-admin", List.of("Admin"), TOKEN_TTL);
+        if (scenario == Scenario.ROLE_UPDATE) {
+            userIds = fetchSeededUserIds(Math.min(users, 1000));
+        }
+    }
+
+    // Ids are assigned by the database, so role updates target whatever the admin listing returns
+    private long[] fetchSeededUserIds(int count) throws IOException, InterruptedException {
+        HttpRequest request = authorized(baseUrl + "/api/v1/admin/users?page=0&size=" + count + "&query=loaduser",
+                adminToken).GET().build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Listing seeded users failed with " + response.statusCode()
+                    + ": " + response.body());
+        }
+        JsonNode content = new ObjectMapper().readTree(response.body()).path("content");
+        long[] ids = new long[content.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = content.get(i).path("id").asLong();
+        }
+        if (ids.length == 0) {
+            throw new IllegalStateException("No seeded users found; run perf/loadtest/seed.sql first");
+        }
+        return ids;
+    }
+
+    private Result run(ExecutorService executor, int concurrency, Duration duration)
+            throws InterruptedException, ExecutionException {
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+        List<Future<Histogram>> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            workers.add(executor.submit(() -> worker(deadline, statuses)));
+        }
+        Histogram latencies = new Histogram(3);
+        for (Future<Histogram> worker : workers) {
+            latencies.add(worker.get());
+        }
+        return new Result(latencies, statuses, System.nanoTime() - start);
+    }
+
+    private Histogram worker(long deadline, Map<Integer, LongAdder> statuses) {
+        Histogram latencies = new Histogram(3);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (System.nanoTime() < deadline) {
+            HttpRequest request = next(random);
+            long start = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = IO_ERROR;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            latencies.recordValue((System.nanoTime() - start) / 1_000);
+            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        }
+        return latencies;
+    }
+
+    private HttpRequest next(ThreadLocalRandom random) {
+        return switch (scenario) {
+            case LOGIN_STORM -> {
+                if (random.nextDouble() < anonymousRatio) {
+                    yield HttpRequest.newBuilder(URI.create(baseUrl + "/api/v1/me")).timeout(REQUEST_TIMEOUT)
+                            .GET().build();
+                }
+                String token;
+                if (random.nextDouble() < newUserRatio) {
+                    String sub = "load-new-" + runId + "-" + newUsers.incrementAndGet();
+                    token = issuer.mint(sub, sub + "@example.com", sub, List.of(), TOKEN_TTL);
+                } else {
+                    token = userToken(random.nextInt(1, users + 1));
+                }
+                yield authorized(baseUrl + "/api/sync/login", token).POST(HttpRequest.BodyPublishers.noBody())
+                        .build();
+            }
+            case ME -> authorized(baseUrl + "/api/v1/me", userToken(random.nextInt(1, activeUsers + 1)))
+                    .GET().build();
+            case ADMIN_SEARCH -> authorized(baseUrl + "/api/v1/admin/users?size=20&mode=" + searchMode
+                    + "&query=" + random.nextInt(100, 1000), adminToken).GET().build();
+            case ROLE_UPDATE -> {
+                long id = userIds[random.nextInt(userIds.length)];
+                String body = random.nextBoolean()
+                        ? "{\"roles\":[\"Employee\"]}"
+                        : "{\"roles\":[\"Employee\",\"Manager\"]}";
+                yield authorized(baseUrl + "/api/v1/admin/users/" + id + "/roles", adminToken)
+                        .header("Content-Type", "application/json")
+                        .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+        };
+    }
+
+    // Seeded user n: sub load-user-n, username loaduser<n>, matching seed.sql
+    private String userToken(int n) {
+        String token = userTokens.get(n);
+        if (token == null) {
+            token = issuer.mint("load-user-" + n, "loaduser" + n + "@example.com", "loaduser" + n, List.of(),
+                    TOKEN_TTL);
+            userTokens.compareAndSet(n, null, token);
+        }
+        return token;
+    }
+
+    private static HttpRequest.Builder authorized(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private record Result(Histogram latencies, Map<Integer, LongAdder> statuses, long elapsedNanos) {
+
+        long requests() {
+            return latencies.getTotalCount();
+        }
+
+        long errors() {
+            return statuses.entrySet().stream()
+                    .filter(e -> e.getKey() < 200 || e.getKey() >= 400)
+                    .mapToLong(e -> e.getValue().sum())
+                    .sum();
+        }
+
+        double throughput() {
+            return requests() / (elapsedNanos / 1e9);
+        }
+
+        double millis(double percentile) {
+            return latencies.getValueAtPercentile(percentile) / 1_000.0;
+        }
+
+        void print(Scenario scenario, int concurrency) {
+            StringBuilder codes = new StringBuilder();
+            new TreeMap<>(statuses).forEach((status, count) -> codes
+                    .append(status == IO_ERROR ? "io" : status).append('=').append(count.sum()).append(' '));
+            System.out.printf(Locale.ROOT, "== %s, %d clients, %.1fs%n", scenario.name().toLowerCase(Locale.ROOT)
+                    .replace('_', '-'), concurrency, elapsedNanos / 1e9);
+            System.out.printf(Locale.ROOT, "requests    %d (%.1f/s), errors %d%n", requests(), throughput(), errors());
+            System.out.printf(Locale.ROOT, "status      %s%n", codes.toString().trim());
+            System.out.printf(Locale.ROOT, "latency ms  p50=%.2f p90=%.2f p99=%.2f p99.9=%.2f max=%.2f%n",
+                    millis(50), millis(90), millis(99), millis(99.9), latencies.getMaxValue() / 1_000.0);
+        }
+
+        void append(Path out, Scenario scenario, int concurrency) {
+            try {
+                if (!Files.exists(out)) {
+                    Files.writeString(out, "scenario,concurrency,requests,throughput,errors,p50_ms,p90_ms,p99_ms,"
+                            + "p999_ms,max_ms\n", StandardCharsets.UTF_8);
+                }
+                String line = String.format(Locale.ROOT, "%s,%d,%d,%.1f,%d,%.2f,%.2f,%.2f,%.2f,%.2f%n",
+                        scenario.name().toLowerCase(Locale.ROOT).replace('_', '-'), concurrency, requests(),
+                        throughput(), errors(), millis(50), millis(90), millis(99), millis(99.9),
+                        latencies.getMaxValue() / 1_000.0);
+                Files.writeString(out, line, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
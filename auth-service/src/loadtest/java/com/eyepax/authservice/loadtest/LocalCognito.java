@@ -0,0 +1,88 @@
+package com.eyepax.authservice.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Stand-in for the Cognito user pool endpoints the service talks to.
+ * <ul>
+ * <li>{@code GET /.well-known/jwks.json}: the public signing key, for
+ * {@code cognito.jwk-set-uri}</li>
+ * <li>{@code GET /token?sub=..&email=..&username=..&groups=Admin,..&ttl=3600}:
+ * a freshly signed ID token, handy with curl</li>
+ * </ul>
+ * Usage: {@code LocalCognito [--port=9411] [--key=target/loadtest/signing-key.json]}
+ */
+public final class LocalCognito {
+
+    private LocalCognito() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Options.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "9411"));
+        TokenIssuer issuer = TokenIssuer.load(Path.of(options.getOrDefault("key", Options.DEFAULT_KEY)));
+        byte[] jwks = issuer.publicJwks().toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/.well-known/jwks.json", exchange -> respond(exchange, 200, "application/json", jwks));
+        server.createContext("/token", exchange -> {
+            Map<String, String> query = query(exchange);
+            String sub = query.get("sub");
+            if (sub == null || sub.isBlank()) {
+                respond(exchange, 400, "text/plain", "sub is required".getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            String email = query.getOrDefault("email", sub + "@example.com");
+            String username = query.getOrDefault("username", sub);
+            List<String> groups = query.containsKey("groups")
+                    ? Arrays.stream(query.get("groups").split(",")).filter(g -> !g.isBlank()).toList()
+                    : List.of();
+            Duration ttl = Duration.ofSeconds(Long.parseLong(query.getOrDefault("ttl", "3600")));
+            String token = issuer.mint(sub, email, username, groups, ttl);
+            respond(exchange, 200, "text/plain", token.getBytes(StandardCharsets.UTF_8));
+        });
+        server.start();
+        System.out.println("Local Cognito listening on http://localhost:" + port
+                + " (JWKS at /.well-known/jwks.json)");
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, byte[] body)
+            throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
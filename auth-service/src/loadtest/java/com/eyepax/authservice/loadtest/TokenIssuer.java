@@ -0,0 +1,108 @@
+package com.eyepax.authservice.loadtest;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Signs Cognito-shaped ID tokens with a local RSA key. The key is kept in a
+ * file so the JWKS server and the load generator, which run as separate
+ * processes, sign and publish the same key.
+ */
+final class TokenIssuer {
+
+    static final String ISSUER = "http://localhost/loadtest-user-pool";
+    static final String CLIENT_ID = "loadtest";
+
+    private final RSAKey key;
+    private final JWSSigner signer;
+
+    private TokenIssuer(RSAKey key) throws JOSEException {
+        this.key = key;
+        this.signer = new RSASSASigner(key);
+    }
+
+    /**
+     * Loads the signing key from {@code keyFile}, generating and saving a new
+     * one the first time.
+     */
+    static TokenIssuer load(Path keyFile) {
+        try {
+            RSAKey key;
+            if (Files.exists(keyFile)) {
+                key = RSAKey.parse(Files.readString(keyFile));
+            } else {
+                key = new RSAKeyGenerator(2048)
+                        .keyID("loadtest-" + UUID.randomUUID().toString().substring(0, 8))
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(JWSAlgorithm.RS256)
+                        .generate();
+                if (keyFile.getParent() != null) {
+                    Files.createDirectories(keyFile.getParent());
+                }
+                Files.writeString(keyFile, key.toJSONString());
+            }
+            return new TokenIssuer(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read or write signing key " + keyFile, e);
+        } catch (ParseException | JOSEException e) {
+            throw new IllegalStateException("Invalid signing key " + keyFile, e);
+        }
+    }
+
+    JWKSet publicJwks() {
+        return new JWKSet(key.toPublicJWK());
+    }
+
+    /**
+     * Mints an ID token with the claims Cognito puts in one and the service
+     * reads: sub, email and preferred_username, plus cognito:groups when
+     * {@code groups} is not empty.
+     */
+    String mint(String sub, String email, String username, List<String> groups, Duration ttl) {
+        Instant now = Instant.now();
+        JWTClaimsSet.Builder claims = new JWTClaimsSet.Builder()
+                .subject(sub)
+                .issuer(ISSUER)
+                .audience(CLIENT_ID)
+                .jwtID(UUID.randomUUID().toString())
+                .issueTime(Date.from(now))
+                .expirationTime(Date.from(now.plus(ttl)))
+                .claim("token_use", "id")
+                .claim("auth_time", now.getEpochSecond())
+                .claim("email", email)
+                .claim("email_verified", true)
+                .claim("cognito:username", sub)
+                .claim("preferred_username", username);
+        if (!groups.isEmpty()) {
+            claims.claim("cognito:groups", groups);
+        }
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                claims.build());
+        try {
+            jwt.sign(signer);
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Could not sign token for " + sub, e);
+        }
+        return jwt.serialize();
+    }
+}
@@ -0,0 +1,80 @@
+package com.eyepax.authservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read/write splitting, active when {@code auth.datasource.replica.url} is
+ * set. Writes and ordinary transactions use the primary pool configured under
+ * {@code spring.datasource}; transactions marked
+ * {@code @Transactional(readOnly = true)} get their connection from the
+ * replica pool ({@code auth.datasource.replica.*}).
+ * <p>
+ * The exposed {@link DataSource} is a {@link LazyConnectionDataSourceProxy},
+ * so the physical connection is only fetched at the first statement, after
+ * the transaction's read-only flag is known. A caller who committed a write
+ * within {@code auth.datasource.replica.read-your-writes-window} keeps
+ * reading from the primary, so replica lag never hides their own changes.
+ * Pointing the replica URL at the primary runs everything against a single
+ * instance.
+ */
+@Configuration
+@ConditionalOnProperty("auth.datasource.replica.url")
+public class ReadReplicaConfiguration {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("auth.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${auth.datasource.replica.url}") String url,
+            @Value("${auth.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${auth.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        // LazyConnectionDataSourceProxy leaves the flag alone on read-only connections
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(
+            @Value("${auth.datasource.replica.read-your-writes-window:5s}") Duration window,
+            @Value("${auth.datasource.replica.read-your-writes-max-callers:100000}") long maxCallers) {
+        return new ReadYourWrites(window, maxCallers);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+            ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, readYourWrites, meterRegistry));
+        return dataSource;
+    }
+}
@@ -0,0 +1,51 @@
+package com.eyepax.authservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Source of connections for read-only transactions: the replica, unless the
+ * current caller wrote recently (see {@link ReadYourWrites}), in which case
+ * the primary. Choices are counted as {@code auth.datasource.reads}.
+ */
+class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+
+    private final ReadYourWrites readYourWrites;
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWrites readYourWrites,
+            MeterRegistry meterRegistry) {
+        this.readYourWrites = readYourWrites;
+        this.primaryReads = readsCounter(meterRegistry, PRIMARY);
+        this.replicaReads = readsCounter(meterRegistry, REPLICA);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(replica);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    private static Counter readsCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("auth.datasource.reads")
+                .description("Connections handed to read-only transactions")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (readYourWrites.mustReadFromPrimary()) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return REPLICA;
+    }
+}
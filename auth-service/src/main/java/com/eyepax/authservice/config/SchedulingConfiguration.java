@@ -0,0 +1,38 @@
+package com.eyepax.authservice.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+
+    /**
+     * Spring's scheduler has a single thread by default, so a slow job such
+     * as the last-login flush would hold up every other @Scheduled job. Once
+     * all of them are registered, grows the pool to one thread per job, so a
+     * new job needs no change here. An explicit
+     * {@code spring.task.scheduling.pool.size} is left alone. The vthreads
+     * profile has no pool to size: it starts a virtual thread per run.
+     */
+    @Bean
+    public SmartInitializingSingleton schedulerPoolPerJob(ObjectProvider<ThreadPoolTaskScheduler> scheduler,
+            ObjectProvider<ScheduledTaskHolder> taskHolders,
+            @Value("${spring.task.scheduling.pool.size:0}") int configuredPoolSize) {
+        return () -> {
+            if (configuredPoolSize > 0) {
+                return;
+            }
+            scheduler.ifAvailable(pool -> {
+                int jobs = taskHolders.stream().mapToInt(holder -> holder.getScheduledTasks().size()).sum();
+                pool.setPoolSize(Math.max(jobs, 1));
+            });
+        };
+    }
+}
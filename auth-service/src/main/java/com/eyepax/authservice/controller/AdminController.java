@@ -1,35 +1,55 @@
 package com.eyepax.authservice.controller;
 
+import com.eyepax.authservice.dto.BulkRoleUpdateDto;
+import com.eyepax.authservice.dto.BulkRoleUpdateResultDto;
+import com.eyepax.authservice.dto.RoleDto;
 import com.eyepax.authservice.dto.RoleUpdateDto;
 import com.eyepax.authservice.dto.UserDetailDto;
 import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.service.BulkRoleAssignmentService;
+import com.eyepax.authservice.service.RoleRegistry;
 import com.eyepax.authservice.service.UserService;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/admin")
 public class AdminController {
 
     private final UserService userService;
+    private final RoleRegistry roleRegistry;
+    private final BulkRoleAssignmentService bulkRoleAssignmentService;
 
-    public AdminController(UserService userService) {
+    public AdminController(UserService userService, RoleRegistry roleRegistry,
+            BulkRoleAssignmentService bulkRoleAssignmentService) {
         this.userService = userService;
+        this.roleRegistry = roleRegistry;
+        this.bulkRoleAssignmentService = bulkRoleAssignmentService;
     }
 
+    // ETags from users.version; a matching If-None-Match gets a 304 without the body being written
     @PreAuthorize("hasAuthority('Admin')")
     @GetMapping("/users")
-    public Page<UserDto> listUsers(@RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<Page<UserDto>> listUsers(@RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            @RequestParam(defaultValue = "") String query) {
-        return userService.getUsers(page, size, query);
+            @RequestParam(defaultValue = "") String query,
+            @RequestParam(defaultValue = "CONTAINS") UserService.SearchMode mode) {
+        Page<UserDto> users = userService.getUsers(page, size, query, mode);
+        return ETags.ok(ETags.userPage(users), users);
     }
 
     @PreAuthorize("hasAuthority('Admin')")
     @GetMapping("/users/{id}")
-    public UserDetailDto getUser(@PathVariable Long id) {
-        return userService.getUserDetails(id);
+    public ResponseEntity<UserDetailDto> getUser(@PathVariable Long id) {
+        UserDetailDto user = userService.getUserDetails(id);
+        return ETags.ok(ETags.userDetail(user), user);
     }
 
     @PreAuthorize("hasAuthority('Admin')")
@@ -37,4 +57,25 @@ public class AdminController {
     public UserDetailDto updateRoles(@PathVariable Long id, @RequestBody RoleUpdateDto dto) {
         return userService.updateUserRoles(id, dto.getRoles());
     }
+
+    // Applies one role operation to many users in a single transaction
+    @PreAuthorize("hasAuthority('Admin')")
+    @PostMapping("/users/roles/bulk")
+    public List<BulkRoleUpdateResultDto> updateRolesInBulk(@RequestBody BulkRoleUpdateDto dto) {
+        return bulkRoleAssignmentService.apply(dto);
+    }
+
+    // Role catalog; served from RoleRegistry and revalidated by ETag
+    @PreAuthorize("hasAuthority('Admin')")
+    @GetMapping("/roles")
+    public ResponseEntity<List<RoleDto>> listRoles(WebRequest request) {
+        String etag = "\"" + roleRegistry.etag() + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePrivate())
+                .body(roleRegistry.all());
+    }
 }
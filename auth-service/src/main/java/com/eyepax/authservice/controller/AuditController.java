@@ -1,11 +1,19 @@
 package com.eyepax.authservice.controller;
 
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.dto.AuditLogPageDto;
 import com.eyepax.authservice.model.AuditLog;
 import com.eyepax.authservice.repository.AuditLogRepository;
+import com.eyepax.authservice.service.AuditLogExportService;
+import com.eyepax.authservice.service.AuditLogQueryService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -13,13 +21,43 @@ import java.util.List;
 public class AuditController {
 
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogQueryService auditLogQueryService;
+    private final AuditLogExportService auditLogExportService;
 
-    public AuditController(AuditLogRepository auditLogRepository) {
+    public AuditController(AuditLogRepository auditLogRepository, AuditLogQueryService auditLogQueryService,
+            AuditLogExportService auditLogExportService) {
         this.auditLogRepository = auditLogRepository;
+        this.auditLogQueryService = auditLogQueryService;
+        this.auditLogExportService = auditLogExportService;
     }
 
+    // Loads the whole table; prefer /audit-log/search
+    @Deprecated
     @GetMapping("/audit-log")
     public List<AuditLog> getAuditLogs() {
         return auditLogRepository.findAll();
     }
+
+    // Filters: userId, eventType, ipAddress, from (inclusive), to (exclusive), ISO-8601 instants
+    @GetMapping("/audit-log/search")
+    public AuditLogPageDto searchAuditLogs(AuditLogFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AuditLogQueryService.DEFAULT_PAGE_SIZE) int size) {
+        return auditLogQueryService.search(filter, cursor, size);
+    }
+
+    // Full export for compliance, streamed from a database cursor. Accepts the same filters as /search.
+    @GetMapping("/audit-log/export")
+    public void exportAuditLogs(AuditLogFilter filter,
+            @RequestParam(defaultValue = "NDJSON") AuditLogExportService.Format format,
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        String filename = "audit-log." + format.name().toLowerCase() + (gzip ? ".gz" : "");
+        String contentType = gzip ? "application/gzip"
+                : format == AuditLogExportService.Format.CSV ? "text/csv;charset=UTF-8" : "application/x-ndjson";
+
+        response.setContentType(contentType);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        auditLogExportService.export(filter, format, gzip, response.getOutputStream());
+    }
 }
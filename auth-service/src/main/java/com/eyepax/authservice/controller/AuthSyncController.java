@@ -4,7 +4,7 @@ import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -21,13 +21,16 @@ public class AuthSyncController {
     private final UserSyncService userSyncService;
     private final AuditLogService auditLogService;
     private final UserRepository userRepository;
+    private final JwtDecoder jwtDecoder;
 
     public AuthSyncController(UserSyncService userSyncService,
             AuditLogService auditLogService,
-            UserRepository userRepository) {
+            UserRepository userRepository,
+            JwtDecoder jwtDecoder) {
         this.userSyncService = userSyncService;
         this.auditLogService = auditLogService;
         this.userRepository = userRepository;
+        this.jwtDecoder = jwtDecoder;
     }
 
     @PostMapping("/login")
@@ -36,9 +39,7 @@ public class AuthSyncController {
         try {
             // Decode JWT to get Cognito sub
             String token = authHeader.replace("Bearer ", "");
-            Jwt jwt = NimbusJwtDecoder.withJwkSetUri(
-                    "https://cognito-idp.ap-southeast-2.amazonaws.com/ap-southeast-2_JTbvLI75U/.well-known/jwks.json")
-                    .build().decode(token);
+            Jwt jwt = jwtDecoder.decode(token);
             String sub = jwt.getClaimAsString("sub");
             String email = jwt.getClaimAsString("email");
             String name = jwt.getClaimAsString("preferred_username");
@@ -60,9 +61,7 @@ public class AuthSyncController {
             HttpServletRequest request) {
         try {
             String token = authHeader.replace("Bearer ", "");
-            Jwt jwt = NimbusJwtDecoder.withJwkSetUri(
-                    "https://cognito-idp.ap-southeast-2.amazonaws.com/ap-southeast-2_JTbvLI75U/.well-known/jwks.json")
-                    .build().decode(token);
+            Jwt jwt = jwtDecoder.decode(token);
             String sub = jwt.getClaimAsString("sub");
 
             var userId = userRepository.findByCognitoSub(sub)
@@ -0,0 +1,109 @@
+package com.eyepax.authservice.controller;
+
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.UserDetailDto;
+import com.eyepax.authservice.dto.UserDto;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * Strong ETags for user representations, derived from users.version (see the
+ * V6 migration) instead of hashing serialized bodies. Each method returns null
+ * when a version is unknown, in which case no ETag is sent.
+ */
+final class ETags {
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ETags() {
+    }
+
+    static String user(Long id, Long version) {
+        return version == null ? null : "\"u" + id + "-" + version + "\"";
+    }
+
+    // The detail view also shows audit activity, which grows without touching users.version
+    static String userDetail(UserDetailDto user) {
+        if (user.getVersion() == null) {
+            return null;
+        }
+        long newestLog = user.getAuditLogs() == null ? 0 : user.getAuditLogs().stream()
+                .map(AuditLogDto::getId)
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .max()
+                .orElse(0);
+        long logs = user.getActivitySummary() == null ? 0
+                : user.getActivitySummary().values().stream().mapToLong(Long::longValue).sum();
+        return "\"u" + user.getId() + "-" + user.getVersion() + "-a" + logs + "." + newestLog + "\"";
+    }
+
+    static String userPage(Page<UserDto> page) {
+        MessageDigest digest = sha256();
+        digest.update((page.getTotalElements() + "\n").getBytes(StandardCharsets.UTF_8));
+        for (UserDto user : page.getContent()) {
+            if (user.getVersion() == null) {
+                return null;
+            }
+            digest.update((user.getId() + ":" + user.getVersion() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 8) + "\"";
+    }
+
+    /**
+     * Whether If-None-Match lists {@code etag}. Unlike
+     * {@link WebRequest#checkNotModified(String)} this leaves the response
+     * alone, so a miss can still be answered with a different ETag.
+     */
+    static boolean matches(WebRequest request, String etag) {
+        String header = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (header == null || etag == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            String tag = candidate.trim();
+            // If-None-Match uses weak comparison
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A 200 that clients must revalidate before reuse. For GET requests Spring
+     * turns it into a 304 without writing the body when If-None-Match matches.
+     */
+    static <T> ResponseEntity<T> ok(String etag, T body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(REVALIDATE);
+        if (etag != null) {
+            response.eTag(etag);
+        }
+        return response.body(body);
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
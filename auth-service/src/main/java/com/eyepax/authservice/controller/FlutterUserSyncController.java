@@ -1,13 +1,14 @@
 package com.eyepax.authservice.controller;
 
 import com.eyepax.authservice.dto.UserDto;
-import com.eyepax.authservice.model.User;
+import com.eyepax.authservice.dto.UserSyncDto;
+import com.eyepax.authservice.dto.UserSyncResultDto;
 import com.eyepax.authservice.service.UserSyncService;
-import lombok.Data;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.stream.Collectors;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/sync")
@@ -21,32 +22,21 @@ public class FlutterUserSyncController {
     }
 
     @PostMapping("/user")
-    public ResponseEntity<UserDto> syncUser(@RequestBody UserSyncRequest request) {
+    public ResponseEntity<UserDto> syncUser(@RequestBody UserSyncDto request) {
         // Create or update user in DB
-        User user = userSyncService.findOrCreateFromCognito(
+        UserDto dto = userSyncService.findOrCreateFromCognito(
                 request.getSub(),
                 request.getEmail(),
                 request.getUsername(),
                 request.getDisplayName());
 
-        // Convert to UserDto
-        UserDto dto = new UserDto(
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
-                user.getDisplayName(),
-                user.getRoles() != null
-                        ? user.getRoles().stream().map(role -> role.getName()).collect(Collectors.toSet())
-                        : null);
-
         return ResponseEntity.ok(dto);
     }
 
-    @Data
-    private static class UserSyncRequest {
-        private String sub;
-        private String email;
-        private String username;
-        private String displayName;
+    // Bulk import / migration of Cognito users; one upsert per batch instead of a call per user
+    @PreAuthorize("hasAuthority('Admin')")
+    @PostMapping("/users")
+    public List<UserSyncResultDto> syncUsers(@RequestBody List<UserSyncDto> request) {
+        return userSyncService.syncAll(request);
     }
 }
@@ -0,0 +1,36 @@
+package com.eyepax.authservice.controller;
+
+import com.eyepax.authservice.dto.TokenIntrospectionDto;
+import com.eyepax.authservice.dto.TokenIntrospectionRequestDto;
+import com.eyepax.authservice.service.TokenIntrospectionService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/tokens")
+@PreAuthorize("hasAnyAuthority('Service', 'Admin')")
+public class TokenController {
+
+    private final TokenIntrospectionService tokenIntrospectionService;
+
+    public TokenController(TokenIntrospectionService tokenIntrospectionService) {
+        this.tokenIntrospectionService = tokenIntrospectionService;
+    }
+
+    // For other services authorizing their callers; a rejected token is 200 with "active": false
+    @PostMapping("/introspect")
+    public TokenIntrospectionDto introspect(@RequestBody TokenIntrospectionRequestDto request) {
+        return tokenIntrospectionService.introspect(request.getToken());
+    }
+
+    // Raw tokens in, results in the same order
+    @PostMapping("/introspect/batch")
+    public List<TokenIntrospectionDto> introspectAll(@RequestBody List<String> tokens) {
+        return tokenIntrospectionService.introspectAll(tokens);
+    }
+}
@@ -1,25 +1,52 @@
 package com.eyepax.authservice.controller;
 
 import com.eyepax.authservice.dto.UpdateUserDto;
+import com.eyepax.authservice.dto.UserChangePageDto;
 import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.dto.UserLookupRequestDto;
+import com.eyepax.authservice.dto.UserLookupResultDto;
+import com.eyepax.authservice.security.CachedPrincipal;
+import com.eyepax.authservice.service.UserChangeFeed;
+import com.eyepax.authservice.service.UserLookupService;
 import com.eyepax.authservice.service.UserService;
 import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/v1")
 public class UserController {
 
     private final UserService userService;
+    private final UserLookupService userLookupService;
+    private final UserChangeFeed userChangeFeed;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserLookupService userLookupService,
+            UserChangeFeed userChangeFeed) {
         this.userService = userService;
+        this.userLookupService = userLookupService;
+        this.userChangeFeed = userChangeFeed;
     }
 
+    // Polled constantly by the apps. A current If-None-Match is answered from the
+    // principal cache; otherwise Spring turns a matching ETag on the response into a 304.
     @GetMapping("/me")
-    public UserDto getMe(Authentication authentication) {
-        return userService.getCurrentUser(authentication);
+    public ResponseEntity<UserDto> getMe(Authentication authentication, WebRequest request) {
+        CachedPrincipal cached = userService.getCachedPrincipal(authentication);
+        if (cached != null) {
+            String etag = ETags.user(cached.userId(), cached.version());
+            if (ETags.matches(request, etag)) {
+                return ETags.notModified(etag);
+            }
+        }
+        UserDto user = userService.getCurrentUser(authentication);
+        return ETags.ok(ETags.user(user.getId(), user.getVersion()), user);
     }
 
     @PatchMapping("/me")
@@ -28,4 +55,21 @@ public class UserController {
         return userService.updateCurrentUser(authentication, updateUserDto);
     }
 
+    // Resolves many users by id and/or Cognito sub in one call, e.g. every row of a report
+    @PreAuthorize("hasAnyAuthority('Service', 'Admin')")
+    @PostMapping("/users/lookup")
+    public UserLookupResultDto lookupUsers(@RequestBody UserLookupRequestDto request) {
+        return userLookupService.lookup(request.getIds(), request.getSubs());
+    }
+
+    // Change feed for services that keep a copy of users: without a cursor, the position to follow from;
+    // with one, the changes after it, waiting up to `wait` seconds for some to arrive
+    @PreAuthorize("hasAnyAuthority('Service', 'Admin')")
+    @GetMapping("/users/changes")
+    public DeferredResult<UserChangePageDto> userChanges(@RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + UserChangeFeed.DEFAULT_LIMIT) int limit,
+            @RequestParam(defaultValue = "30") int wait) {
+        return userChangeFeed.poll(cursor, limit, Duration.ofSeconds(wait));
+    }
+
 }
@@ -0,0 +1,20 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogFilter {
+    private Long userId;
+    private String eventType;
+    private String ipAddress;
+    // inclusive
+    private Instant from;
+    // exclusive
+    private Instant to;
+}
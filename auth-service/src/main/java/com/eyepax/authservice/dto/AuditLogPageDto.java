@@ -0,0 +1,16 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogPageDto {
+    private List<AuditLogDto> items;
+    // null on the last page
+    private String nextCursor;
+}
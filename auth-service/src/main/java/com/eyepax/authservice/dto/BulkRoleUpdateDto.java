@@ -0,0 +1,27 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRoleUpdateDto {
+
+    public enum Operation {
+        // Grant the roles on top of what each user already has
+        ADD,
+        // Take the roles away, leaving any others in place
+        REMOVE,
+        // Make the roles the user's complete set
+        REPLACE
+    }
+
+    private List<Long> userIds;
+    private Operation operation;
+    private Set<String> roles;
+}
@@ -0,0 +1,22 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkRoleUpdateResultDto {
+
+    public enum Status {
+        UPDATED, UNCHANGED, NOT_FOUND
+    }
+
+    private Long userId;
+    private Status status;
+    // Role names after the update; null when the user doesn't exist
+    private Set<String> roles;
+}
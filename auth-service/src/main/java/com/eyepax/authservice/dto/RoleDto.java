@@ -0,0 +1,14 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoleDto {
+    private Long id;
+    private String name;
+    private String description;
+}
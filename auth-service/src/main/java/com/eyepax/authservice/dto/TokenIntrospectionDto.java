@@ -0,0 +1,26 @@
+package com.eyepax.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+// What another service needs to authorize a caller; only "active" is set for rejected tokens
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TokenIntrospectionDto {
+    private boolean active;
+    private String sub;
+    private Long userId;
+    private List<String> roles;
+    private Instant expiresAt;
+
+    public static TokenIntrospectionDto inactive() {
+        return new TokenIntrospectionDto(false, null, null, null, null);
+    }
+}
@@ -0,0 +1,13 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenIntrospectionRequestDto {
+    // Raw access or ID token, without the "Bearer " prefix
+    private String token;
+}
@@ -0,0 +1,27 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * One entry of the user change feed: the user's current state, or only the
+ * id and version once deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangeDto {
+    private Long userId;
+    private String cognitoSub;
+    private String username;
+    private String email;
+    private String displayName;
+    private String status;
+    private Set<String> roles;
+    // Apply only when newer than the local copy: the feed may repeat a user's state
+    private Long version;
+    private boolean deleted;
+}
@@ -0,0 +1,16 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserChangePageDto {
+    private List<UserChangeDto> changes;
+    // Never null: the position to resume from, unchanged when there were no changes
+    private String nextCursor;
+}
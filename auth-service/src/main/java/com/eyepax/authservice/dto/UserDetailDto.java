@@ -1,13 +1,17 @@
 package com.eyepax.authservice.dto;
 
-import com.eyepax.authservice.model.AuditLog;
-
+import com.eyepax.authservice.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Data
+@NoArgsConstructor
 // @JsonInclude(JsonInclude.Include.NON_EMPTY)
 public class UserDetailDto {
     private Long id;
@@ -15,14 +19,27 @@ public class UserDetailDto {
     private String email;
     private String displayName;
     private Set<String> roles;
-    private List<AuditLog> auditLogs;
+    // Latest entries only, newest first
+    private List<AuditLogDto> auditLogs;
+    // Entries per event type over the user's whole history
+    private Map<String, Long> activitySummary;
+    // Audit search URL for the entries after auditLogs; null when there are none
+    private String auditLogsNext;
+
+    // users.version, for ETags; not part of the JSON body
+    @JsonIgnore
+    private Long version;
 
-    public UserDetailDto(com.eyepax.authservice.model.User user, List<AuditLog> auditLogs) {
+    public UserDetailDto(User user, List<AuditLogDto> auditLogs, Map<String, Long> activitySummary,
+            String auditLogsNext) {
         this.id = user.getId();
         this.username = user.getUsername();
         this.email = user.getEmail();
         this.displayName = user.getDisplayName();
-        this.roles = user.getRoles().stream().map(r -> r.getName()).collect(java.util.stream.Collectors.toSet());
+        this.roles = user.getRoles().stream().map(r -> r.getName()).collect(Collectors.toSet());
         this.auditLogs = auditLogs;
+        this.activitySummary = activitySummary;
+        this.auditLogsNext = auditLogsNext;
+        this.version = user.getVersion();
     }
 }
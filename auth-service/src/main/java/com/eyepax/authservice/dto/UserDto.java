@@ -1,7 +1,9 @@
 package com.eyepax.authservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.util.Set;
@@ -15,5 +17,14 @@ public class UserDto {
     private String email;
     private String displayName;
     private Set<String> roles;
+
+    // users.version, for ETags; not part of the JSON body
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+
+    public UserDto(Long id, String username, String email, String displayName, Set<String> roles) {
+        this(id, username, email, displayName, roles, null);
+    }
 }
 
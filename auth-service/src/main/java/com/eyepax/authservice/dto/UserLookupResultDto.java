@@ -0,0 +1,17 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserLookupResultDto {
+    // One per distinct user found, whether asked for by id, sub or both
+    private List<UserSummaryDto> users;
+    private List<Long> missingIds;
+    private List<String> missingSubs;
+}
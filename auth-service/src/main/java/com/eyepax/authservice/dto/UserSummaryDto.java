@@ -0,0 +1,26 @@
+package com.eyepax.authservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+// What other services need to show and authorize a user; no contact details
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSummaryDto {
+    private Long id;
+    private String sub;
+    private String username;
+    private String displayName;
+    private Set<String> roles;
+
+    // users.version, to keep the newest state when cached; not part of the JSON body
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Long version;
+}
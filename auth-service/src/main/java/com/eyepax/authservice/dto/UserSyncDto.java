@@ -0,0 +1,15 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSyncDto {
+    private String sub;
+    private String email;
+    private String username;
+    private String displayName;
+}
@@ -0,0 +1,18 @@
+package com.eyepax.authservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserSyncResultDto {
+    private Long id;
+    private String sub;
+    // true when this sync inserted the user, false when it already existed
+    private boolean created;
+    private Set<String> roles;
+}
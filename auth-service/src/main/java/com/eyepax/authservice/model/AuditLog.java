@@ -12,7 +12,8 @@ import java.time.Instant;
 @AllArgsConstructor
 public class AuditLog {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_log_seq")
+    @SequenceGenerator(name = "audit_log_seq", sequenceName = "audit_log_id_seq", allocationSize = 1)
     private Long id;
 
     @Column(name = "user_id")
@@ -39,9 +39,14 @@ public class User {
     @Column(name = "updated_at")
     private Instant updatedAt;
 
-    @Column(name = "last_login")
+    // Written by LastLoginWriteBehind and the sync upserts; saving a loaded user must not put back a stale value
+    @Column(name = "last_login", updatable = false)
     private Instant lastLogin;
 
+    // Maintained by database triggers (V6), never written from here
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roles = new HashSet<>();
@@ -0,0 +1,128 @@
+package com.eyepax.authservice.repository;
+
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Read-side queries over audit_log that don't go through JPA entities.
+ * Timestamps are bound and read as timestamptz so they line up with the
+ * way Hibernate and the audit writer store them.
+ */
+@Repository
+public class AuditLogQueryRepository {
+
+    static final String COLUMNS = "id, user_id, event_type, event_desc, ip_address, user_agent, "
+            + "created_at::timestamptz AS created_at";
+
+    // Cast the parameter, not the column, so the created_at indexes stay usable
+    static final String TIMESTAMP_PARAM = "CAST(CAST(? AS timestamptz) AS timestamp)";
+
+    static final RowMapper<AuditLogDto> ROW_MAPPER = (rs, rowNum) -> new AuditLogDto(
+            rs.getLong("id"),
+            rs.getObject("user_id", Long.class),
+            rs.getString("event_type"),
+            rs.getString("event_desc"),
+            rs.getString("ip_address"),
+            rs.getString("user_agent"),
+            rs.getObject("created_at", OffsetDateTime.class).toInstant());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditLogQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Newest-first page of at most {@code limit} rows strictly older than the
+     * (afterCreatedAt, afterId) keyset position, or from the top when that is null.
+     */
+    public List<AuditLogDto> findPage(AuditLogFilter filter, Instant afterCreatedAt, Long afterId, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM audit_log WHERE TRUE");
+        appendFilter(sql, args, filter);
+        if (afterCreatedAt != null && afterId != null) {
+            sql.append(" AND (created_at, id) < (").append(TIMESTAMP_PARAM).append(", ?)");
+            args.add(utc(afterCreatedAt));
+            args.add(afterId);
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    // Number of entries per event type over the user's whole history, by event type name
+    public Map<String, Long> countByEventType(Long userId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT event_type, count(*) AS events FROM audit_log WHERE user_id = ?"
+                + " GROUP BY event_type ORDER BY event_type", (RowCallbackHandler) rs -> counts.put(
+                        rs.getString("event_type"), rs.getLong("events")), userId);
+        return counts;
+    }
+
+    /**
+     * Streams every matching row oldest-first through a server-side cursor.
+     * Must run inside a (read-only) transaction, otherwise the PostgreSQL
+     * driver ignores the fetch size and buffers the whole result.
+     */
+    public void streamAll(AuditLogFilter filter, int fetchSize, Consumer<AuditLogDto> consumer) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM audit_log WHERE TRUE");
+        appendFilter(sql, args, filter);
+        sql.append(" ORDER BY created_at, id");
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> consumer.accept(ROW_MAPPER.mapRow(rs, 0)));
+    }
+
+    static void appendFilter(StringBuilder sql, List<Object> args, AuditLogFilter filter) {
+        if (filter == null) {
+            return;
+        }
+        if (filter.getUserId() != null) {
+            sql.append(" AND user_id = ?");
+            args.add(filter.getUserId());
+        }
+        if (filter.getEventType() != null && !filter.getEventType().isBlank()) {
+            sql.append(" AND event_type = ?");
+            args.add(filter.getEventType());
+        }
+        if (filter.getIpAddress() != null && !filter.getIpAddress().isBlank()) {
+            sql.append(" AND ip_address = ?");
+            args.add(filter.getIpAddress());
+        }
+        if (filter.getFrom() != null) {
+            sql.append(" AND created_at >= ").append(TIMESTAMP_PARAM);
+            args.add(utc(filter.getFrom()));
+        }
+        if (filter.getTo() != null) {
+            sql.append(" AND created_at < ").append(TIMESTAMP_PARAM);
+            args.add(utc(filter.getTo()));
+        }
+    }
+
+    static OffsetDateTime utc(Instant instant) {
+        return OffsetDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+}
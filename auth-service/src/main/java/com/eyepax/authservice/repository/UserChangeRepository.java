@@ -0,0 +1,114 @@
+package com.eyepax.authservice.repository;
+
+import com.eyepax.authservice.dto.UserChangeDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads user_change_outbox (see V8) joined with each user's current state
+ * and roles. Positions are (txid, id) pairs, and only rows of transactions
+ * older than the oldest one still running are visible here, so nothing can
+ * later appear before a position already handed out. Used outside
+ * read-only transactions, which keeps it on the primary: a position handed
+ * out must never be ahead of what the next request sees.
+ */
+@Repository
+public class UserChangeRepository {
+
+    public record Position(long txid, long id) implements Comparable<Position> {
+
+        // Before any change; where consumers of an empty outbox start
+        public static final Position START = new Position(0, 0);
+
+        private static final Comparator<Position> ORDER = Comparator.comparingLong(Position::txid)
+                .thenComparingLong(Position::id);
+
+        @Override
+        public int compareTo(Position other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public record Change(Position position, UserChangeDto user) {
+    }
+
+    private static final String COMPLETED = "o.txid < pg_snapshot_xmin(pg_current_snapshot())";
+
+    private static final RowMapper<Change> ROW_MAPPER = (rs, rowNum) -> {
+        boolean deleted = rs.getBoolean("deleted");
+        Array roles = rs.getArray("roles");
+        Set<String> roleNames = deleted ? Set.of() : new LinkedHashSet<>(Arrays.asList((String[]) roles.getArray()));
+        return new Change(new Position(Long.parseLong(rs.getString("txid")), rs.getLong("id")),
+                new UserChangeDto(
+                        rs.getLong("user_id"),
+                        rs.getString("cognito_sub"),
+                        rs.getString("username"),
+                        rs.getString("email"),
+                        rs.getString("display_name"),
+                        rs.getString("status"),
+                        roleNames,
+                        rs.getLong("version"),
+                        deleted));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserChangeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Up to {@code limit} changes after {@code after}, oldest first. A user
+     * deleted since the change is reported as deleted.
+     */
+    public List<Change> findAfter(Position after, int limit) {
+        String sql = "SELECT o.txid::text AS txid, o.id, o.user_id, u.cognito_sub, u.username, u.email,"
+                + " u.display_name, u.status, COALESCE(u.version, o.version) AS version,"
+                + " o.deleted OR u.id IS NULL AS deleted,"
+                + " COALESCE(array_agg(r.name ORDER BY r.name) FILTER (WHERE r.name IS NOT NULL), '{}') AS roles"
+                + " FROM (SELECT o.txid, o.id, o.user_id, o.version, o.deleted FROM user_change_outbox o"
+                + " WHERE (o.txid, o.id) > (?::text::xid8, ?) AND " + COMPLETED
+                + " ORDER BY o.txid, o.id LIMIT ?) o"
+                + " LEFT JOIN users u ON u.id = o.user_id"
+                + " LEFT JOIN user_roles ur ON ur.user_id = u.id"
+                + " LEFT JOIN roles r ON r.id = ur.role_id"
+                + " GROUP BY o.txid, o.id, o.user_id, o.version, o.deleted, u.id"
+                + " ORDER BY o.txid, o.id";
+        return jdbcTemplate.query(sql, ROW_MAPPER, after.txid(), after.id(), limit);
+    }
+
+    // The newest visible position, START when there is none
+    public Position head() {
+        List<Position> head = jdbcTemplate.query("SELECT o.txid::text AS txid, o.id FROM user_change_outbox o"
+                + " WHERE " + COMPLETED + " ORDER BY o.txid DESC, o.id DESC LIMIT 1",
+                (rs, rowNum) -> new Position(Long.parseLong(rs.getString("txid")), rs.getLong("id")));
+        return head.isEmpty() ? Position.START : head.get(0);
+    }
+
+    public boolean exists(Position position) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM user_change_outbox WHERE txid = ?::text::xid8 AND id = ?)",
+                Boolean.class, position.txid(), position.id()));
+    }
+
+    /**
+     * Deletes changes older than {@code retention}, except the newest one, so
+     * a consumer that is up to date keeps a valid position however quiet it
+     * gets.
+     */
+    public int prune(Duration retention) {
+        return jdbcTemplate.update("DELETE FROM user_change_outbox o"
+                + " WHERE o.created_at < now() - make_interval(secs => ?)"
+                + " AND (o.txid, o.id) < (SELECT n.txid, n.id FROM user_change_outbox n"
+                + " ORDER BY n.txid DESC, n.id DESC LIMIT 1)", retention.toSeconds());
+    }
+}
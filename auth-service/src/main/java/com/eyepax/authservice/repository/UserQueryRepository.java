@@ -0,0 +1,126 @@
+package com.eyepax.authservice.repository;
+
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.dto.UserSummaryDto;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Read path for the admin user listing and batch lookups. Each page is one
+ * query that pulls the users and their role names (aggregated into an array),
+ * plus a count query when the page size alone can't tell the total. No
+ * entities are hydrated, so neither the EAGER roles association nor
+ * dirty-checking gets involved.
+ */
+@Repository
+public class UserQueryRepository {
+
+    static final RowMapper<UserDto> ROW_MAPPER = (rs, rowNum) -> {
+        Array roles = rs.getArray("roles");
+        return new UserDto(
+                rs.getLong("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("display_name"),
+                new LinkedHashSet<>(Arrays.asList((String[]) roles.getArray())),
+                rs.getLong("version"));
+    };
+
+    // Matches the trigram GIN indexes on lower(username) / lower(email), see V5
+    private static final String CONTAINS = "(lower(u.username) LIKE ? OR lower(u.email) LIKE ?)";
+    private static final String SIMILAR = "(lower(u.username) LIKE ? OR lower(u.email) LIKE ?"
+            + " OR lower(u.username) % ? OR lower(u.email) % ?)";
+    private static final String SIMILARITY = "GREATEST(similarity(lower(u.username), ?), similarity(lower(u.email), ?))";
+
+    private static final RowMapper<UserSummaryDto> SUMMARY_ROW_MAPPER = (rs, rowNum) -> {
+        Array roles = rs.getArray("roles");
+        return new UserSummaryDto(
+                rs.getLong("id"),
+                rs.getString("cognito_sub"),
+                rs.getString("username"),
+                rs.getString("display_name"),
+                new LinkedHashSet<>(Arrays.asList((String[]) roles.getArray())),
+                rs.getLong("version"));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Page<UserDto> findPage(Pageable pageable) {
+        return page("TRUE", List.of(), "0", List.of(), pageable);
+    }
+
+    /**
+     * Users whose username or email contains the escaped, lower-cased LIKE
+     * {@code pattern} (e.g. {@code %john%}), in id order.
+     */
+    public Page<UserDto> findPageContaining(String pattern, Pageable pageable) {
+        return page(CONTAINS, List.of(pattern, pattern), "0", List.of(), pageable);
+    }
+
+    /**
+     * Substring and fuzzy matches for the lower-cased {@code term}, best
+     * trigram similarity first.
+     */
+    public Page<UserDto> findPageBySimilarity(String term, String pattern, Pageable pageable) {
+        return page(SIMILAR, List.of(pattern, pattern, term, term), SIMILARITY, List.of(term, term), pageable);
+    }
+
+    /**
+     * Users matching any of the ids or Cognito subs, in one query whichever
+     * way they were asked for. Unknown keys are simply absent.
+     */
+    public List<UserSummaryDto> findSummaries(Collection<Long> ids, Collection<String> subs) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT u.id, u.cognito_sub, u.username, u.display_name,"
+                    + " u.version,"
+                    + " COALESCE(array_agg(r.name ORDER BY r.name) FILTER (WHERE r.name IS NOT NULL), '{}') AS roles"
+                    + " FROM users u"
+                    + " LEFT JOIN user_roles ur ON ur.user_id = u.id"
+                    + " LEFT JOIN roles r ON r.id = ur.role_id"
+                    + " WHERE u.id = ANY(?) OR u.cognito_sub = ANY(?)"
+                    + " GROUP BY u.id");
+            ps.setArray(1, con.createArrayOf("bigint", ids.toArray()));
+            ps.setArray(2, con.createArrayOf("varchar", subs.toArray()));
+            return ps;
+        }, SUMMARY_ROW_MAPPER);
+    }
+
+    private Page<UserDto> page(String where, List<Object> whereArgs, String score, List<Object> scoreArgs,
+            Pageable pageable) {
+        List<Object> args = new ArrayList<>(scoreArgs);
+        args.addAll(whereArgs);
+        args.add(pageable.getPageSize());
+        args.add(pageable.getOffset());
+
+        String sql = "SELECT p.id, p.username, p.email, p.display_name, p.version,"
+                + " COALESCE(array_agg(r.name ORDER BY r.name) FILTER (WHERE r.name IS NOT NULL), '{}') AS roles"
+                + " FROM (SELECT u.id, u.username, u.email, u.display_name, u.version, " + score + " AS score"
+                + " FROM users u WHERE " + where
+                + " ORDER BY score DESC, u.id LIMIT ? OFFSET ?) p"
+                + " LEFT JOIN user_roles ur ON ur.user_id = p.id"
+                + " LEFT JOIN roles r ON r.id = ur.role_id"
+                + " GROUP BY p.id, p.username, p.email, p.display_name, p.version, p.score"
+                + " ORDER BY p.score DESC, p.id";
+
+        List<UserDto> content = jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+        // Skips the count when this page already shows where the results end
+        return PageableExecutionUtils.getPage(content, pageable, () -> jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM users u WHERE " + where, Long.class, whereArgs.toArray()));
+    }
+}
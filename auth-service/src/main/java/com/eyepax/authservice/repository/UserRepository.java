@@ -1,18 +1,30 @@
 package com.eyepax.authservice.repository;
 
 import com.eyepax.authservice.model.User;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByCognitoSub(String cognitoSub);
 
+    // Read-write on purpose: always served by the primary, even when reads go to a replica
+    @Transactional
+    Optional<User> findOnPrimaryByCognitoSub(String cognitoSub);
+
     Optional<User> findByEmail(String email);
 
-    Page<User> findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(String username, String email,
-            Pageable pageable);
+    // Only the self-service profile columns, so concurrent last_login and role writes are left alone
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.username = :username, u.displayName = :displayName, u.updatedAt = :updatedAt"
+            + " WHERE u.id = :id")
+    int updateProfile(@Param("id") Long id, @Param("username") String username,
+            @Param("displayName") String displayName, @Param("updatedAt") Instant updatedAt);
 
 }
\ No newline at end of file
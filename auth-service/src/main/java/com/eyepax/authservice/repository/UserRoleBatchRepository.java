@@ -0,0 +1,90 @@
+package com.eyepax.authservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set-based reads and writes on user_roles for bulk role changes, bypassing
+ * the User entity and its EAGER roles collection. Meant to run inside the
+ * caller's transaction.
+ * <p>
+ * Each write is a single statement over all pairs: the V6 version and V8
+ * outbox triggers fire per statement, so a JDBC batch of one statement per
+ * pair would bump every user's version and write an outbox row per pair.
+ */
+@Repository
+public class UserRoleBatchRepository {
+
+    /**
+     * A user's identity plus current roles, keyed by role id.
+     */
+    public record UserRoles(Long userId, String cognitoSub, Map<Long, String> roles) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserRoleBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Loads and row-locks the given users with their roles in one query.
+     * Ids that don't exist are simply absent from the result. Rows are locked
+     * in id order, so two bulk updates with overlapping ids can't deadlock.
+     */
+    public Map<Long, UserRoles> lockUsersWithRoles(Collection<Long> userIds) {
+        Map<Long, UserRoles> result = new HashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT u.id, u.cognito_sub, r.id AS role_id, r.name AS role_name"
+                    + " FROM users u"
+                    + " LEFT JOIN user_roles ur ON ur.user_id = u.id"
+                    + " LEFT JOIN roles r ON r.id = ur.role_id"
+                    + " WHERE u.id = ANY(?) ORDER BY u.id FOR UPDATE OF u");
+            ps.setArray(1, con.createArrayOf("bigint", userIds.toArray()));
+            return ps;
+        }, rs -> {
+            String cognitoSub = rs.getString("cognito_sub");
+            UserRoles user = result.computeIfAbsent(rs.getLong("id"),
+                    id -> new UserRoles(id, cognitoSub, new TreeMap<>()));
+            long roleId = rs.getLong("role_id");
+            if (!rs.wasNull()) {
+                user.roles().put(roleId, rs.getString("role_name"));
+            }
+        });
+        return result;
+    }
+
+    // Each pair is {userId, roleId}
+    public void insert(List<Object[]> pairs) {
+        update("INSERT INTO user_roles (user_id, role_id)"
+                + " SELECT * FROM unnest(?::bigint[], ?::bigint[]) ON CONFLICT DO NOTHING", pairs);
+    }
+
+    // Each pair is {userId, roleId}
+    public void delete(List<Object[]> pairs) {
+        update("DELETE FROM user_roles WHERE (user_id, role_id) IN"
+                + " (SELECT * FROM unnest(?::bigint[], ?::bigint[]))", pairs);
+    }
+
+    // Binds the pairs as two parallel arrays
+    private void update(String sql, List<Object[]> pairs) {
+        if (pairs.isEmpty()) {
+            return;
+        }
+        Object[] userIds = pairs.stream().map(pair -> pair[0]).toArray();
+        Object[] roleIds = pairs.stream().map(pair -> pair[1]).toArray();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setArray(1, con.createArrayOf("bigint", userIds));
+            ps.setArray(2, con.createArrayOf("bigint", roleIds));
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,188 @@
+package com.eyepax.authservice.repository;
+
+import com.eyepax.authservice.dto.UserSyncDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Upserts of users keyed on cognito_sub: a multi-row INSERT ... ON CONFLICT
+ * for batch sync and a single-statement find-or-create for logins. Both
+ * replace select-then-save round trips and can't race with a concurrent
+ * first login for the same sub.
+ */
+@Repository
+public class UserUpsertRepository {
+
+    public record UpsertedUser(Long id, String sub, boolean created) {
+    }
+
+    public record ProvisionedUser(Long id, String username, String email, String displayName, boolean created,
+            Set<String> roles, long version) {
+    }
+
+    private static final String PROFILE_COLUMNS = "id, username, email, display_name, version";
+
+    // Looks the user up first so the common case never touches the id sequence or writes a row
+    private static final String FIND_EXISTING = "SELECT " + PROFILE_COLUMNS + " FROM users WHERE cognito_sub = ?";
+
+    private static final String REFRESH_EXISTING = "UPDATE users SET email = COALESCE(?, email),"
+            + " display_name = COALESCE(?, display_name), last_login = ?::timestamptz, updated_at = ?::timestamptz"
+            + " WHERE cognito_sub = ? RETURNING " + PROFILE_COLUMNS;
+
+    private static final String FIND_OR_CREATE = "WITH existing AS (%s),"
+            + " created AS (INSERT INTO users (cognito_sub, email, username, display_name, status, last_login,"
+            + " updated_at) SELECT ?, ?, ?, ?, 'ACTIVE', ?::timestamptz, ?::timestamptz"
+            + " WHERE NOT EXISTS (SELECT 1 FROM existing)"
+            + " ON CONFLICT (cognito_sub) DO NOTHING RETURNING " + PROFILE_COLUMNS + ")"
+            + " SELECT e.id, e.username, e.email, e.display_name, e.version, false AS created,"
+            + " ARRAY(SELECT r.name FROM user_roles ur JOIN roles r ON r.id = ur.role_id"
+            + " WHERE ur.user_id = e.id ORDER BY r.name) AS roles FROM existing e"
+            + " UNION ALL"
+            + " SELECT c.id, c.username, c.email, c.display_name, c.version, true, ARRAY[]::varchar[] FROM created c";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserUpsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts missing users and refreshes email / display name (when given) on
+     * existing ones. {@code loginAt}, when not null, is stored as last_login.
+     * Subs must be unique within {@code users}: PostgreSQL refuses to update the
+     * same row twice in one statement.
+     */
+    public List<UpsertedUser> upsert(List<UserSyncDto> users, Instant loginAt, Instant now) {
+        String sql = "INSERT INTO users (cognito_sub, email, username, display_name, status, last_login, updated_at)"
+                + " SELECT v.sub, v.email, v.username, v.display_name, 'ACTIVE', ?::timestamptz, ?::timestamptz"
+                + " FROM unnest(?::text[], ?::text[], ?::text[], ?::text[]) AS v(sub, email, username, display_name)"
+                + " ON CONFLICT (cognito_sub) DO UPDATE SET"
+                + " email = COALESCE(EXCLUDED.email, users.email),"
+                + " display_name = COALESCE(EXCLUDED.display_name, users.display_name),"
+                + " last_login = COALESCE(EXCLUDED.last_login, users.last_login),"
+                + " updated_at = EXCLUDED.updated_at"
+                // xmax is only zero on rows this statement inserted
+                + " RETURNING id, cognito_sub, (xmax = 0) AS created";
+
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setObject(1, loginAt == null ? null : OffsetDateTime.ofInstant(loginAt, ZoneOffset.UTC));
+            ps.setObject(2, OffsetDateTime.ofInstant(now, ZoneOffset.UTC));
+            ps.setArray(3, con.createArrayOf("text", users.stream().map(UserSyncDto::getSub).toArray()));
+            ps.setArray(4, con.createArrayOf("text", users.stream().map(UserSyncDto::getEmail).toArray()));
+            ps.setArray(5, con.createArrayOf("text", users.stream().map(UserSyncDto::getUsername).toArray()));
+            ps.setArray(6, con.createArrayOf("text", users.stream().map(UserSyncDto::getDisplayName).toArray()));
+            return ps;
+        }, (rs, rowNum) -> new UpsertedUser(rs.getLong("id"), rs.getString("cognito_sub"), rs.getBoolean("created")));
+    }
+
+    /**
+     * Finds the user by sub or inserts it, in one statement, returning the
+     * user's roles and version when it already existed. With
+     * {@code refreshProfile} an existing user's email / display name (when
+     * given) and last_login are updated too. For a created user the version is
+     * the one before the V2 trigger granted the default role; see
+     * {@link #findVersion}.
+     * <p>
+     * Empty means the insert lost a race: another transaction inserted the
+     * same sub after this statement's snapshot was taken. That row is
+     * committed by the time this returns, so calling again finds it.
+     */
+    public Optional<ProvisionedUser> findOrCreate(UserSyncDto user, boolean refreshProfile, Instant now) {
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(now, ZoneOffset.UTC);
+        String sql = String.format(FIND_OR_CREATE, refreshProfile ? REFRESH_EXISTING : FIND_EXISTING);
+        List<ProvisionedUser> rows = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            int i = 1;
+            if (refreshProfile) {
+                ps.setString(i++, user.getEmail());
+                ps.setString(i++, user.getDisplayName());
+                ps.setObject(i++, timestamp);
+                ps.setObject(i++, timestamp);
+            }
+            ps.setString(i++, user.getSub());
+            ps.setString(i++, user.getSub());
+            ps.setString(i++, user.getEmail());
+            ps.setString(i++, user.getUsername());
+            ps.setString(i++, user.getDisplayName());
+            ps.setObject(i++, timestamp);
+            ps.setObject(i, timestamp);
+            return ps;
+        }, (rs, rowNum) -> new ProvisionedUser(
+                rs.getLong("id"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("display_name"),
+                rs.getBoolean("created"),
+                new LinkedHashSet<>(Arrays.asList((String[]) rs.getArray("roles").getArray())),
+                rs.getLong("version")));
+        return rows.stream().findFirst();
+    }
+
+    // Current users.version, including bumps by role triggers earlier in this transaction
+    public long findVersion(Long userId) {
+        Long version = jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = ?", Long.class, userId);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Grants a role to a freshly created user and returns all of its role
+     * names, including those the V2 trigger added, in one statement.
+     */
+    public Set<String> grantRole(Long userId, Long roleId) {
+        List<String> names = jdbcTemplate.queryForList("WITH granted AS (INSERT INTO user_roles (user_id, role_id)"
+                + " VALUES (?, ?) ON CONFLICT DO NOTHING RETURNING role_id)"
+                + " SELECT r.name FROM roles r WHERE r.id IN"
+                + " (SELECT role_id FROM user_roles WHERE user_id = ? UNION SELECT role_id FROM granted)"
+                + " ORDER BY r.name", String.class, userId, roleId, userId);
+        return new LinkedHashSet<>(names);
+    }
+
+    public void assignRole(Collection<Long> userIds, Long roleId) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement("INSERT INTO user_roles (user_id, role_id)"
+                    + " SELECT unnest(?::bigint[]), ? ON CONFLICT DO NOTHING");
+            ps.setArray(1, con.createArrayOf("bigint", userIds.toArray()));
+            ps.setLong(2, roleId);
+            return ps;
+        });
+    }
+
+    /**
+     * Role names per user id. Read in a separate statement because roles added
+     * by the tr_assign_employee_role trigger (V2) aren't visible to the
+     * upsert's own RETURNING clause.
+     */
+    public Map<Long, Set<String>> findRoleNames(Collection<Long> userIds) {
+        Map<Long, Set<String>> roles = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return roles;
+        }
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement("SELECT ur.user_id, r.name FROM user_roles ur"
+                    + " JOIN roles r ON r.id = ur.role_id WHERE ur.user_id = ANY(?)");
+            ps.setArray(1, con.createArrayOf("bigint", userIds.toArray()));
+            return ps;
+        }, rs -> {
+            roles.computeIfAbsent(rs.getLong("user_id"), id -> new TreeSet<>()).add(rs.getString("name"));
+        });
+        return roles;
+    }
+}
@@ -32,11 +32,11 @@ public class AuthenticationSuccessListener implements ApplicationListener<Authen
             // create or update local user
             var user = userSyncService.findOrCreateFromCognito(sub, email, email, name);
 
-            // get current request
+            // get current request; the user id is not copied into the session, callers resolve it
+            // from the principal
             HttpServletRequest request = null;
             try {
                 request = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
-                request.getSession().setAttribute("USER_ID", user.getId());
             } catch (Exception ignored) {}
 
             // audit
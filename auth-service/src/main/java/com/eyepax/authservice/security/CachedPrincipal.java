@@ -0,0 +1,32 @@
+package com.eyepax.authservice.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable snapshot of what the resource server needs to authorize a bearer
+ * token: the local user id and the authorities derived from the user's roles.
+ * {@code version} is the user's users.version when the snapshot was taken
+ * (null if unknown), which lets {@code GET /me} answer conditional requests
+ * without a query.
+ */
+public record CachedPrincipal(Long userId, Collection<GrantedAuthority> authorities, Long version) {
+
+    public CachedPrincipal {
+        authorities = List.copyOf(authorities);
+    }
+
+    public static CachedPrincipal of(Long userId, Collection<String> roleNames) {
+        return of(userId, roleNames, null);
+    }
+
+    public static CachedPrincipal of(Long userId, Collection<String> roleNames, Long version) {
+        List<GrantedAuthority> authorities = roleNames.stream()
+                .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                .toList();
+        return new CachedPrincipal(userId, authorities, version);
+    }
+}
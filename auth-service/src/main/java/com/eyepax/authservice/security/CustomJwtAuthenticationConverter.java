@@ -1,73 +1,92 @@
 package com.eyepax.authservice.security;
 
-import com.eyepax.authservice.model.Role;
-import com.eyepax.authservice.model.User;
-import com.eyepax.authservice.repository.RoleRepository;
-import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.service.LastLoginWriteBehind;
+import com.eyepax.authservice.service.UserSyncService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Turns a decoded bearer token into the request's authentication. Timed as
+ * {@code auth.authentication.convert}, tagged by whether the principal came
+ * from the cache or had to be loaded, and by outcome.
+ */
 @Component
 public class CustomJwtAuthenticationConverter implements Converter<Jwt, AbstractAuthenticationToken> {
 
-    private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final UserSyncService userSyncService;
+    private final PrincipalCache principalCache;
+    private final LastLoginWriteBehind lastLoginWriteBehind;
+    private final Timer cachedTimer;
+    private final Timer loadedTimer;
+    private final Timer failedTimer;
 
-    public CustomJwtAuthenticationConverter(UserRepository userRepository, RoleRepository roleRepository) {
-        this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+    public CustomJwtAuthenticationConverter(UserSyncService userSyncService, PrincipalCache principalCache,
+            LastLoginWriteBehind lastLoginWriteBehind, MeterRegistry meterRegistry) {
+        this.userSyncService = userSyncService;
+        this.principalCache = principalCache;
+        this.lastLoginWriteBehind = lastLoginWriteBehind;
+        this.cachedTimer = convertTimer(meterRegistry, "cached", "success");
+        this.loadedTimer = convertTimer(meterRegistry, "loaded", "success");
+        this.failedTimer = convertTimer(meterRegistry, "loaded", "failure");
+    }
+
+    private static Timer convertTimer(MeterRegistry meterRegistry, String principal, String outcome) {
+        return Timer.builder("auth.authentication.convert")
+                .description("Time taken to build the authentication for a decoded bearer token")
+                .tag("principal", principal)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
     }
 
     @Override
     public AbstractAuthenticationToken convert(Jwt jwt) {
+        long start = System.nanoTime();
         String cognitoSub = jwt.getClaimAsString("sub");
-        String email = jwt.getClaimAsString("email");
-        String username = jwt.getClaimAsString("email");
-        String displayName = jwt.getClaimAsString("preferred_username");
+        boolean[] loaded = new boolean[1];
 
-        System.out.println("JWT sub: " + cognitoSub);
+        CachedPrincipal principal;
+        try {
+            // Roles rarely change, so only go to the database when the principal is not cached
+            principal = principalCache.get(cognitoSub, sub -> {
+                loaded[0] = true;
+                return loadPrincipal(jwt);
+            });
+        } catch (RuntimeException e) {
+            failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
 
-        // Find user or create a new one if missing
-        User user = userRepository.findByCognitoSub(cognitoSub).orElseGet(() -> {
-            System.out.println("🆕 Creating new user in DB for sub: " + cognitoSub);
-            User newUser = new User();
-            newUser.setCognitoSub(cognitoSub);
-            newUser.setEmail(email);
-            newUser.setUsername(username);
-            newUser.setDisplayName(displayName);
-            newUser.setStatus("ACTIVE");
-            newUser.setCreatedAt(Instant.now());
-            newUser.setLastLogin(Instant.now());
+        // Login timestamps are coalesced and flushed in batches instead of one UPDATE per request
+        lastLoginWriteBehind.record(principal.userId(), Instant.now());
 
-            // Default role: USER
-            roleRepository.findByName("USER").ifPresent(role -> {
-                Set<Role> roles = new HashSet<>();
-                roles.add(role);
-                newUser.setRoles(roles);
-            });
+        JwtAuthenticationToken authentication = new JwtAuthenticationToken(jwt, principal.authorities(), cognitoSub);
+        (loaded[0] ? loadedTimer : cachedTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return authentication;
+    }
 
-            return userRepository.save(newUser);
-        });
+    private CachedPrincipal loadPrincipal(Jwt jwt) {
+        String cognitoSub = jwt.getClaimAsString("sub");
+        String email = jwt.getClaimAsString("email");
+        String username = jwt.getClaimAsString("email");
+        String displayName = jwt.getClaimAsString("preferred_username");
 
-        // Update login timestamps for existing users
-        user.setLastLogin(Instant.now());
-        user.setUpdatedAt(Instant.now());
-        userRepository.save(user);
+        // Find user or create a new one if missing; a single statement, safe against parallel first requests
+        UserDto user = userSyncService.findOrCreate(cognitoSub, email, username, displayName);
 
         // Convert roles to authorities
-        Collection<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName()))
-                .collect(Collectors.toList());
-
-        return new JwtAuthenticationToken(jwt, authorities, cognitoSub);
+        return CachedPrincipal.of(user.getId(), user.getRoles(), user.getVersion());
     }
 }
@@ -8,7 +8,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.jwt.Jwt;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.web.authentication.logout.LogoutSuccessHandler;
 import org.springframework.stereotype.Component;
 
@@ -19,9 +19,7 @@ public class CustomLogoutSuccessHandler implements LogoutSuccessHandler {
 
     private final UserRepository userRepository;
     private final AuditLogService auditLogService;
-
-    @Value("${cognito.jwk-set-uri}")
-    private String jwkSetUri;
+    private final JwtDecoder jwtDecoder;
 
     @Value("${spring.security.oauth2.client.registration.cognito.client-id}")
     private String clientId;
@@ -33,9 +31,11 @@ public class CustomLogoutSuccessHandler implements LogoutSuccessHandler {
     @Value("${cognito.logout-redirect-uri}")
     private String logoutRedirectUri;
 
-    public CustomLogoutSuccessHandler(UserRepository userRepository, AuditLogService auditLogService) {
+    public CustomLogoutSuccessHandler(UserRepository userRepository, AuditLogService auditLogService,
+            JwtDecoder jwtDecoder) {
         this.userRepository = userRepository;
         this.auditLogService = auditLogService;
+        this.jwtDecoder = jwtDecoder;
     }
 
     @Override
@@ -57,7 +57,7 @@ public class CustomLogoutSuccessHandler implements LogoutSuccessHandler {
             String token = request.getParameter("token");
             if (token != null && !token.isEmpty()) {
                 try {
-                    Jwt jwt = NimbusJwtDecoder.withJwkSetUri(jwkSetUri).build().decode(token);
+                    Jwt jwt = jwtDecoder.decode(token);
                     String sub = jwt.getClaimAsString("sub");
                     userId = String.valueOf(userRepository.findByCognitoSub(sub)
                             .map(u -> u.getId())
@@ -0,0 +1,223 @@
+package com.eyepax.authservice.security;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.KeySourceException;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.source.JWKSetCacheRefreshEvaluator;
+import com.nimbusds.jose.jwk.source.JWKSetSource;
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.jwk.source.JWKSourceBuilder;
+import com.nimbusds.jose.jwk.source.URLBasedJWKSetSource;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.util.DefaultResourceRetriever;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one JWKS-backed {@link JwtDecoder} shared by the resource server, the
+ * sync endpoints and the logout handler. Keys are cached and refreshed in the
+ * background before they expire; a token signed with an unknown {@code kid}
+ * triggers a single refetch no matter how many requests hit it at once.
+ *
+ * <p>The JWK set URI may be {@code http(s):} or, for local runs and tests,
+ * {@code file:}.
+ *
+ * <p>Key set fetches are timed as {@code auth.jwks.fetch} and rejected tokens
+ * counted as {@code auth.jwt.decode.failures}, tagged with a coarse reason.
+ */
+public class JwksJwtDecoder implements JwtDecoder, ApplicationListener<ApplicationReadyEvent>, Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksJwtDecoder.class);
+
+    private final JWKSource<SecurityContext> jwkSource;
+    private final NimbusJwtDecoder delegate;
+    private final Counter invalidCounter;
+    private final Counter rejectedCounter;
+    private final Counter keySourceCounter;
+
+    public JwksJwtDecoder(JWKSource<SecurityContext> jwkSource, MeterRegistry meterRegistry) {
+        this.jwkSource = jwkSource;
+        this.invalidCounter = decodeFailures(meterRegistry, "invalid");
+        this.rejectedCounter = decodeFailures(meterRegistry, "rejected");
+        this.keySourceCounter = decodeFailures(meterRegistry, "key_source");
+
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new JWSVerificationKeySelector<>(JWSAlgorithm.RS256, jwkSource));
+        // Claims are validated by Spring's OAuth2TokenValidator chain, as with NimbusJwtDecoder's builders
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> {
+        });
+        this.delegate = new NimbusJwtDecoder(jwtProcessor);
+    }
+
+    public static JwksJwtDecoder withJwkSetUri(String jwkSetUri, Duration cacheTtl, Duration refreshAhead,
+            Duration refreshTimeout, Duration minRefetchInterval, MeterRegistry meterRegistry) {
+        URI uri = URI.create(jwkSetUri);
+        JWKSetSource<SecurityContext> source;
+        try {
+            source = "file".equalsIgnoreCase(uri.getScheme())
+                    ? new FileJwkSetSource(Path.of(uri))
+                    : new URLBasedJWKSetSource<>(uri.toURL(), new DefaultResourceRetriever(
+                            JWKSourceBuilder.DEFAULT_HTTP_CONNECT_TIMEOUT, JWKSourceBuilder.DEFAULT_HTTP_READ_TIMEOUT,
+                            JWKSourceBuilder.DEFAULT_HTTP_SIZE_LIMIT));
+        } catch (MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid JWK set URI: " + jwkSetUri, e);
+        }
+        return withJwkSetSource(source, cacheTtl, refreshAhead, refreshTimeout, minRefetchInterval, meterRegistry);
+    }
+
+    public static JwksJwtDecoder withJwkSetSource(JWKSetSource<SecurityContext> source, Duration cacheTtl,
+            Duration refreshAhead, Duration refreshTimeout, Duration minRefetchInterval, MeterRegistry meterRegistry) {
+        JWKSource<SecurityContext> jwkSource = JWKSourceBuilder.create(new TimedJwkSetSource(source, meterRegistry))
+                .cache(cacheTtl.toMillis(), refreshTimeout.toMillis())
+                // Scheduled refresh-ahead: keys are reloaded in the background before the TTL runs out
+                .refreshAheadCache(refreshAhead.toMillis(), true)
+                // Unknown kids refetch at most once per interval, so forged kids can't hammer the JWKS endpoint
+                .rateLimited(minRefetchInterval.toMillis())
+                .build();
+        return new JwksJwtDecoder(jwkSource, meterRegistry);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        try {
+            return delegate.decode(token);
+        } catch (JwtValidationException e) {
+            // Signature fine, claims not (expired, not yet valid, ...)
+            rejectedCounter.increment();
+            throw e;
+        } catch (BadJwtException e) {
+            // Malformed, bad signature or unknown key
+            invalidCounter.increment();
+            throw e;
+        } catch (JwtException e) {
+            // Key set could not be loaded
+            keySourceCounter.increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Loads the key set so the first request doesn't pay for the fetch.
+     */
+    public boolean warmUp() {
+        try {
+            jwkSource.get(new JWKSelector(new JWKMatcher.Builder().build()), null);
+            return true;
+        } catch (KeySourceException e) {
+            log.warn("Could not pre-load JWK set: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        warmUp();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (jwkSource instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static Counter decodeFailures(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("auth.jwt.decode.failures")
+                .description("Tokens that could not be decoded")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Times every actual key set load; the caching layers above only call
+     * through on a miss or refresh.
+     */
+    private static final class TimedJwkSetSource implements JWKSetSource<SecurityContext> {
+
+        private final JWKSetSource<SecurityContext> delegate;
+        private final Timer successTimer;
+        private final Timer failureTimer;
+
+        private TimedJwkSetSource(JWKSetSource<SecurityContext> delegate, MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            this.successTimer = fetchTimer(meterRegistry, "success");
+            this.failureTimer = fetchTimer(meterRegistry, "failure");
+        }
+
+        private static Timer fetchTimer(MeterRegistry meterRegistry, String outcome) {
+            return Timer.builder("auth.jwks.fetch")
+                    .description("Time taken to load the JWK set")
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public JWKSet getJWKSet(JWKSetCacheRefreshEvaluator refreshEvaluator, long currentTime,
+                SecurityContext context) throws KeySourceException {
+            long start = System.nanoTime();
+            try {
+                JWKSet jwkSet = delegate.getJWKSet(refreshEvaluator, currentTime, context);
+                successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return jwkSet;
+            } catch (KeySourceException | RuntimeException e) {
+                failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static final class FileJwkSetSource implements JWKSetSource<SecurityContext> {
+
+        private final Path path;
+
+        private FileJwkSetSource(Path path) {
+            this.path = path;
+        }
+
+        @Override
+        public JWKSet getJWKSet(JWKSetCacheRefreshEvaluator refreshEvaluator, long currentTime,
+                SecurityContext context) throws KeySourceException {
+            try {
+                return JWKSet.load(path.toFile());
+            } catch (IOException | ParseException e) {
+                throw new KeySourceException("Couldn't read JWK set from " + path, e);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
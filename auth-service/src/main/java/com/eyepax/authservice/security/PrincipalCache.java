@@ -0,0 +1,105 @@
+package com.eyepax.authservice.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-based cache of authenticated principals keyed by Cognito sub.
+ * Saves the user + roles lookup on every bearer-token request; entries are
+ * dropped explicitly when a user's profile or roles change and otherwise
+ * expire after {@code auth.principal-cache.ttl}. Invalidation is local, so
+ * changes made through another instance show up here once the entry expires.
+ * <p>
+ * Loads run on the caller's thread but outside the cache's internal lock:
+ * the map only holds a future while the database is queried, and concurrent
+ * callers for the same sub wait on that future. That way a virtual thread
+ * never blocks on I/O while pinned to its carrier.
+ */
+@Component
+public class PrincipalCache {
+
+    private final AsyncCache<String, CachedPrincipal> cache;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+            @Value("${auth.principal-cache.ttl:5m}") Duration ttl,
+            @Value("${auth.principal-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.principals");
+    }
+
+    // A loader may return null for an unknown user; nothing is cached then and callers get null
+    public CachedPrincipal get(String cognitoSub, Function<String, CachedPrincipal> loader) {
+        CompletableFuture<CachedPrincipal> loading = new CompletableFuture<>();
+        CompletableFuture<CachedPrincipal> result = cache.get(cognitoSub, (sub, executor) -> loading);
+        if (result != loading) {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            CachedPrincipal principal = loader.apply(cognitoSub);
+            loading.complete(principal);
+            return principal;
+        } catch (RuntimeException | Error e) {
+            // Failed futures are evicted, so the next call retries
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public CachedPrincipal getIfPresent(String cognitoSub) {
+        CompletableFuture<CachedPrincipal> future = cache.getIfPresent(cognitoSub);
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    public void invalidate(String cognitoSub) {
+        if (cognitoSub != null) {
+            cache.synchronous().invalidate(cognitoSub);
+        }
+    }
+
+    /**
+     * Invalidates once the current transaction commits, or right away outside
+     * one. Dropping entries before commit would let a concurrent request
+     * re-cache the old state.
+     */
+    public void invalidateAfterCommit(Collection<String> cognitoSubs) {
+        if (cognitoSubs.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cognitoSubs.forEach(this::invalidate);
+            return;
+        }
+        List<String> subs = List.copyOf(cognitoSubs);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                subs.forEach(PrincipalCache.this::invalidate);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+    }
+}
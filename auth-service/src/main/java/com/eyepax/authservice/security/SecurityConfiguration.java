@@ -3,22 +3,25 @@ package com.eyepax.authservice.security;
 import com.eyepax.authservice.repository.UserRepository;
 import com.eyepax.authservice.service.AuditLogService;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
-import java.net.URL;
+import java.time.Duration;
 
 /**
  * Class to configure AWS Cognito as an OAuth 2.0 authorizer with Spring
@@ -26,6 +29,9 @@ import java.net.URL;
  * In this configuration, we specify our OAuth Client.
  * We also declare that all requests must come from an authenticated user.
  * Finally, we configure our logout handler.
+ * <p>
+ * Two filter chains: {@code /api/**} is a stateless bearer-token API, and
+ * everything else is the browser login with its HTTP session.
  */
 @Configuration
 @EnableWebSecurity
@@ -36,16 +42,74 @@ public class SecurityConfiguration {
     private String jwkSetUri; // e.g. ->
                               // https://cognito-idp.{region}.amazonaws.com/{userPoolId}/.well-known/jwks.json
 
+    /**
+     * Single shared decoder: keys are cached, refreshed ahead of expiry and
+     * refetched once on an unknown kid. Injected wherever a token is decoded.
+     */
     @Bean
-    public JwtDecoder jwtDecoder() throws Exception {
-        return NimbusJwtDecoder.withJwkSetUri(String.valueOf(new URL(jwkSetUri))).build();
+    public JwksJwtDecoder jwksJwtDecoder(@Value("${auth.jwks.cache-ttl:15m}") Duration cacheTtl,
+            @Value("${auth.jwks.refresh-ahead:1m}") Duration refreshAhead,
+            @Value("${auth.jwks.refresh-timeout:15s}") Duration refreshTimeout,
+            @Value("${auth.jwks.min-refetch-interval:30s}") Duration minRefetchInterval,
+            MeterRegistry meterRegistry) {
+        return JwksJwtDecoder.withJwkSetUri(jwkSetUri, cacheTtl, refreshAhead, refreshTimeout, minRefetchInterval,
+                meterRegistry);
+    }
+
+    /**
+     * Decoder used by the resource server and everything else: optionally
+     * caches verified tokens until they expire so repeated tokens skip
+     * signature verification.
+     */
+    @Bean
+    @Primary
+    public JwtDecoder jwtDecoder(JwksJwtDecoder jwksJwtDecoder, MeterRegistry meterRegistry,
+            @Value("${auth.jwt.token-cache.enabled:true}") boolean tokenCacheEnabled,
+            @Value("${auth.jwt.token-cache.max-size:50000}") long tokenCacheMaxSize) {
+        if (!tokenCacheEnabled) {
+            return jwksJwtDecoder::decode;
+        }
+        return new CachingJwtDecoder(jwksJwtDecoder, tokenCacheMaxSize, meterRegistry);
     }
 
     @Autowired
     private CustomJwtAuthenticationConverter customJwtAuthenticationConverter;
 
+    /**
+     * Bearer-token API. Every request authenticates from its Authorization
+     * header, so no HTTP session is created or read: the security context is
+     * kept in the request only, unauthenticated requests are not saved for
+     * replay after login, and they get a 401 instead of a login redirect.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiFilterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
+        http.securityMatcher("/api/**")
+                .csrf(csrf -> csrf.disable())
+                .cors(Customizer.withDefaults())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(authz -> authz
+                        .requestMatchers("/api/v1/admin/**").hasAuthority("Admin")
+                        // Answers about arbitrary users and tokens, so only for other services
+                        .requestMatchers("/api/v1/users/lookup", "/api/v1/users/changes", "/api/v1/tokens/**")
+                        .hasAnyAuthority("Service", "Admin")
+                        .anyRequest().authenticated())
+                .oauth2ResourceServer(
+                        oauth2 -> oauth2.jwt(jwt -> jwt.decoder(jwtDecoder)
+                                .jwtAuthenticationConverter(customJwtAuthenticationConverter)));
+
+        return http.build();
+    }
+
+    /**
+     * Browser login through the Cognito hosted UI, session based. Bearer
+     * tokens are still accepted here for the few endpoints outside
+     * {@code /api}.
+     */
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http,
+            JwtDecoder jwtDecoder,
             AuditLogService auditLogService,
             UserRepository userRepository,
             CustomLogoutSuccessHandler customLogoutSuccessHandler,
@@ -55,12 +119,12 @@ public class SecurityConfiguration {
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/").permitAll()
-                        .requestMatchers("/api/v1/admin/**").hasAuthority("Admin")
                         .anyRequest().authenticated())
                 .oauth2Login(oauth2 -> oauth2
                         .successHandler(customOAuth2LoginSuccessHandler))
                 .oauth2ResourceServer(
-                        oauth2 -> oauth2.jwt(jwt -> jwt.jwtAuthenticationConverter(customJwtAuthenticationConverter)))
+                        oauth2 -> oauth2.jwt(jwt -> jwt.decoder(jwtDecoder)
+                                .jwtAuthenticationConverter(customJwtAuthenticationConverter)))
                 .logout(logout -> logout
                         .logoutUrl("/logout")
                         .addLogoutHandler((request, response, auth) -> {
@@ -0,0 +1,125 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.repository.AuditLogQueryRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the audit log straight from a database cursor to an output stream,
+ * one row at a time, so memory use doesn't depend on how many rows match.
+ */
+@Service
+public class AuditLogExportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final String CSV_HEADER = "id,user_id,event_type,event_desc,ip_address,user_agent,created_at";
+
+    private final AuditLogQueryRepository auditLogQueryRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int fetchSize;
+
+    public AuditLogExportService(AuditLogQueryRepository auditLogQueryRepository,
+            ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager,
+            @Value("${auth.audit.export.fetch-size:1000}") int fetchSize) {
+        this.auditLogQueryRepository = auditLogQueryRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+    }
+
+    public void export(AuditLogFilter filter, Format format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+        try {
+            switch (format) {
+                case NDJSON -> writeNdjson(filter, target);
+                case CSV -> writeCsv(filter, target);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (target instanceof GZIPOutputStream gzipOut) {
+            gzipOut.finish();
+        }
+        out.flush();
+    }
+
+    private void writeNdjson(AuditLogFilter filter, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        stream(filter, row -> {
+            generator.writeObject(row);
+            generator.writeRaw('\n');
+        });
+        generator.flush();
+    }
+
+    private void writeCsv(AuditLogFilter filter, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        stream(filter, row -> {
+            writer.write(String.valueOf(row.getId()));
+            writer.write(',');
+            writer.write(row.getUserId() == null ? "" : String.valueOf(row.getUserId()));
+            writer.write(',');
+            writer.write(csv(row.getEventType()));
+            writer.write(',');
+            writer.write(csv(row.getEventDesc()));
+            writer.write(',');
+            writer.write(csv(row.getIpAddress()));
+            writer.write(',');
+            writer.write(csv(row.getUserAgent()));
+            writer.write(',');
+            writer.write(String.valueOf(row.getCreatedAt()));
+            writer.write('\n');
+        });
+        writer.flush();
+    }
+
+    private void stream(AuditLogFilter filter, RowWriter rowWriter) {
+        readOnlyTransaction.executeWithoutResult(status -> auditLogQueryRepository.streamAll(filter, fetchSize,
+                row -> {
+                    try {
+                        rowWriter.write(row);
+                    } catch (IOException e) {
+                        // Typically the client went away; abort the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+    }
+
+    static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return quote ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(AuditLogDto row) throws IOException;
+    }
+}
@@ -0,0 +1,188 @@
+package com.eyepax.authservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the monthly audit_log partitions (see V4 migration) in shape:
+ * creates partitions for the coming months ahead of time and detaches or
+ * drops partitions that fall entirely outside the retention window.
+ * Runs once on startup and then on a cron; a transaction-scoped advisory
+ * lock makes sure only one instance does the work at a time.
+ * <p>
+ * If rows for a missing month already landed in audit_log_default (after
+ * an outage longer than {@code months-ahead}, or a skewed clock), Postgres
+ * refuses to create the partition. The default partition is then detached,
+ * the month's rows moved into the new partition and the default reattached,
+ * all in the same transaction. audit_log is locked against writes until it
+ * commits.
+ */
+@Component
+public class AuditLogPartitionMaintenance {
+
+    public enum RetentionAction {
+        DETACH, DROP
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogPartitionMaintenance.class);
+
+    // Arbitrary, only has to be unique among this database's advisory locks
+    private static final long LOCK_KEY = 0x6175646974L;
+    private static final Pattern PARTITION_NAME = Pattern.compile("audit_log_p(\\d{4})_(\\d{2})");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final RetentionAction retentionAction;
+
+    @Autowired
+    public AuditLogPartitionMaintenance(JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${auth.audit.partitions.enabled:true}") boolean enabled,
+            @Value("${auth.audit.partitions.months-ahead:3}") int monthsAhead,
+            @Value("${auth.audit.partitions.retention-months:0}") int retentionMonths,
+            @Value("${auth.audit.partitions.retention-action:DETACH}") RetentionAction retentionAction) {
+        this(jdbcTemplate, transactionManager, Clock.systemUTC(), enabled, monthsAhead, retentionMonths,
+                retentionAction);
+    }
+
+    AuditLogPartitionMaintenance(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            Clock clock, boolean enabled, int monthsAhead, int retentionMonths, RetentionAction retentionAction) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.clock = clock;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.retentionAction = retentionAction;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        run();
+    }
+
+    @Scheduled(cron = "${auth.audit.partitions.cron:0 15 3 * * *}")
+    public void run() {
+        if (!enabled) {
+            return;
+        }
+        YearMonth current = YearMonth.now(clock);
+        // Separate transactions so a failure creating partitions doesn't block retention
+        inLock("create", () -> createPartitions(current));
+        if (retentionMonths > 0) {
+            inLock("retention", () -> applyRetention(current.minusMonths(retentionMonths)));
+        }
+    }
+
+    private void inLock(String step, Runnable work) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class,
+                        LOCK_KEY);
+                if (Boolean.TRUE.equals(locked)) {
+                    work.run();
+                }
+            });
+        } catch (DataAccessException | TransactionException e) {
+            // TransactionException covers not getting a transaction at all, e.g. from an exhausted pool
+            log.warn("audit_log partition maintenance ({}) failed: {}", step, e.getMessage());
+        }
+    }
+
+    private void createPartitions(YearMonth current) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = partitionName(month);
+            Boolean exists = jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name);
+            if (Boolean.TRUE.equals(exists)) {
+                continue;
+            }
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            Boolean stranded = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM audit_log_default"
+                    + " WHERE created_at >= ?::timestamp AND created_at < ?::timestamp)", Boolean.class,
+                    from.toString(), to.toString());
+            if (Boolean.TRUE.equals(stranded)) {
+                createFromDefault(name, from, to);
+                continue;
+            }
+            createPartition(name, from, to);
+            log.info("Created audit_log partition {}", name);
+        }
+    }
+
+    private void createPartition(String name, LocalDate from, LocalDate to) {
+        jdbcTemplate.execute("CREATE TABLE " + name + " PARTITION OF audit_log FOR VALUES FROM ('" + from
+                + "') TO ('" + to + "')");
+    }
+
+    private void createFromDefault(String name, LocalDate from, LocalDate to) {
+        String range = " WHERE created_at >= '" + from + "' AND created_at < '" + to + "'";
+        jdbcTemplate.execute("ALTER TABLE audit_log DETACH PARTITION audit_log_default");
+        createPartition(name, from, to);
+        int moved = jdbcTemplate.update("INSERT INTO " + name + " SELECT * FROM audit_log_default" + range);
+        jdbcTemplate.update("DELETE FROM audit_log_default" + range);
+        jdbcTemplate.execute("ALTER TABLE audit_log ATTACH PARTITION audit_log_default DEFAULT");
+        log.warn("Created audit_log partition {} and moved {} rows into it from audit_log_default", name, moved);
+    }
+
+    /**
+     * Removes every monthly partition strictly older than {@code oldestKept}.
+     */
+    private void applyRetention(YearMonth oldestKept) {
+        for (String name : attachedPartitions()) {
+            Matcher m = PARTITION_NAME.matcher(name);
+            if (!m.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            if (!month.isBefore(oldestKept)) {
+                continue;
+            }
+            if (retentionAction == RetentionAction.DROP) {
+                jdbcTemplate.execute("DROP TABLE " + name);
+            } else {
+                jdbcTemplate.execute("ALTER TABLE audit_log DETACH PARTITION " + name);
+            }
+            log.info("Applied {} to audit_log partition {} (retention {} months)", retentionAction, name,
+                    retentionMonths);
+        }
+    }
+
+    private List<String> attachedPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i"
+                        + " JOIN pg_class c ON c.oid = i.inhrelid"
+                        + " JOIN pg_class p ON p.oid = i.inhparent"
+                        + " WHERE p.relname = 'audit_log' ORDER BY c.relname",
+                String.class);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "audit_log_p" + month.format(PARTITION_SUFFIX);
+    }
+}
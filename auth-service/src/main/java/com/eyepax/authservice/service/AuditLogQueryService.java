@@ -0,0 +1,78 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.dto.AuditLogPageDto;
+import com.eyepax.authservice.repository.AuditLogQueryRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+@Service
+public class AuditLogQueryService {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private final AuditLogQueryRepository auditLogQueryRepository;
+
+    public AuditLogQueryService(AuditLogQueryRepository auditLogQueryRepository) {
+        this.auditLogQueryRepository = auditLogQueryRepository;
+    }
+
+    // Keyset page, newest first. The cursor is opaque to clients.
+    @Transactional(readOnly = true)
+    public AuditLogPageDto search(AuditLogFilter filter, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Instant afterCreatedAt = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = Instant.parse(position[0]);
+            afterId = Long.valueOf(position[1]);
+        }
+
+        // One extra row tells us whether there is a next page
+        List<AuditLogDto> rows = auditLogQueryRepository.findPage(filter, afterCreatedAt, afterId, pageSize + 1);
+        if (rows.size() <= pageSize) {
+            return new AuditLogPageDto(rows, null);
+        }
+        List<AuditLogDto> items = rows.subList(0, pageSize);
+        AuditLogDto last = items.get(items.size() - 1);
+        return new AuditLogPageDto(List.copyOf(items), encodeCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> countByEventType(Long userId) {
+        return auditLogQueryRepository.countByEventType(userId);
+    }
+
+    public static String encodeCursor(Instant createdAt, Long id) {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = position.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            Instant.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.model.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Types;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Non-blocking audit pipeline. Callers enqueue entries into a bounded,
+ * lock-free buffer and a dedicated writer thread drains it into audit_log
+ * with JDBC batch inserts. The id comes from the audit_log_id_seq default,
+ * so no generated keys have to be read back and the batch stays intact.
+ *
+ * <p>When the buffer is full the configured {@link OverflowPolicy} decides
+ * whether the caller waits, the entry is dropped, or it is written
+ * synchronously on the caller's thread.
+ *
+ * <p>A batch that fails to write is kept and retried with exponential
+ * backoff, from the flush interval up to {@code auth.audit.write.max-backoff-ms},
+ * while new entries wait in the buffer behind it. Only after
+ * {@code auth.audit.write.max-attempts} failures are its entries given up on
+ * and counted as {@code auth.audit.write.failures}.
+ */
+@Component
+public class AuditLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK, DROP, SYNC
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final String INSERT_SQL = "INSERT INTO audit_log "
+            + "(user_id, event_type, event_desc, ip_address, user_agent, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?::timestamptz)";
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ConcurrentLinkedQueue<AuditLog> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final JdbcTemplate jdbcTemplate;
+    private final ThreadFactory threadFactory;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final int maxAttempts;
+    private final long maxBackoffNanos;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSummary;
+    private final Counter droppedCounter;
+    private final Counter syncFallbackCounter;
+    private final Counter failedCounter;
+
+    private volatile boolean running;
+    private volatile Thread writerThread;
+
+    // Owned by the writer thread: the batch waiting to be retried and when
+    private List<AuditLog> failedBatch;
+    private int failedAttempts;
+    private long retryAtNanos;
+
+    @Autowired
+    public AuditLogWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+            @Value("${auth.audit.queue-capacity:10000}") int capacity,
+            @Value("${auth.audit.batch-size:200}") int batchSize,
+            @Value("${auth.audit.flush-interval-ms:200}") long flushIntervalMs,
+            @Value("${auth.audit.overflow-policy:SYNC}") OverflowPolicy overflowPolicy,
+            @Value("${auth.audit.write.max-attempts:20}") int maxAttempts,
+            @Value("${auth.audit.write.max-backoff-ms:30000}") long maxBackoffMs,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this(jdbcTemplate, meterRegistry, capacity, batchSize, flushIntervalMs, overflowPolicy, maxAttempts,
+                maxBackoffMs,
+                virtualThreads
+                        ? Thread.ofVirtual().name("audit-log-writer").factory()
+                        : runnable -> new Thread(runnable, "audit-log-writer"));
+    }
+
+    AuditLogWriter(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry, int capacity, int batchSize,
+            long flushIntervalMs, OverflowPolicy overflowPolicy, int maxAttempts, long maxBackoffMs,
+            ThreadFactory threadFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.threadFactory = threadFactory;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.maxAttempts = maxAttempts;
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMs);
+
+        Gauge.builder("auth.audit.queue.depth", size, AtomicInteger::get)
+                .description("Audit entries waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("auth.audit.flush")
+                .description("Time taken to write one batch of audit entries")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+        this.batchSummary = DistributionSummary.builder("auth.audit.flush.batch.size")
+                .description("Audit entries written per batch by the writer thread")
+                .baseUnit("entries")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) Math.max(1, batchSize))
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("auth.audit.dropped")
+                .description("Audit entries dropped because the queue was full")
+                .register(meterRegistry);
+        this.syncFallbackCounter = Counter.builder("auth.audit.sync.fallback")
+                .description("Audit entries written on the caller's thread because the queue was full")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("auth.audit.write.failures")
+                .description("Audit entries given up on after every write attempt failed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        Thread thread = threadFactory.newThread(this::drainLoop);
+        thread.setDaemon(true);
+        writerThread = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+            if (thread.isAlive()) {
+                // Still inside a write, e.g. retrying against a slow database. The buffer and the
+                // failed batch belong to the writer thread, so nothing is drained here until it is gone
+                thread.interrupt();
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+            if (thread.isAlive()) {
+                log.error("Audit writer thread did not stop; {} buffered audit entries are not written", size.get());
+                return;
+            }
+        }
+        // Whatever the writer did not get to is written before the DataSource goes away,
+        // with one more attempt for a failed batch and no further backoff
+        while (drain() > 0) {
+            // keep draining
+        }
+    }
+
+    public void submit(AuditLog entry) {
+        if (!running) {
+            write(List.of(entry));
+            return;
+        }
+        if (!tryReserve()) {
+            switch (overflowPolicy) {
+                case DROP -> {
+                    droppedCounter.increment();
+                    return;
+                }
+                case SYNC -> {
+                    syncFallbackCounter.increment();
+                    write(List.of(entry));
+                    return;
+                }
+                case BLOCK -> {
+                    while (!tryReserve()) {
+                        if (!running) {
+                            write(List.of(entry));
+                            return;
+                        }
+                        wakeWriter();
+                        LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    }
+                }
+            }
+        }
+        queue.offer(entry);
+        if (size.get() >= batchSize) {
+            wakeWriter();
+        }
+    }
+
+    public int queueDepth() {
+        return size.get();
+    }
+
+    /**
+     * Writes the given entries in one JDBC batch on the calling thread. Runs in
+     * the caller's transaction when there is one.
+     */
+    public void write(List<AuditLog> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            Instant createdAt = entry.getCreatedAt() != null ? entry.getCreatedAt() : Instant.now();
+            ps.setObject(1, entry.getUserId(), Types.BIGINT);
+            ps.setString(2, entry.getEventType());
+            ps.setString(3, entry.getEventDesc());
+            ps.setString(4, entry.getIpAddress());
+            ps.setString(5, entry.getUserAgent());
+            ps.setObject(6, OffsetDateTime.ofInstant(createdAt, ZoneOffset.UTC));
+        });
+    }
+
+    int drain() {
+        if (failedBatch != null) {
+            if (running && System.nanoTime() - retryAtNanos < 0) {
+                return 0;
+            }
+            List<AuditLog> batch = failedBatch;
+            failedBatch = null;
+            flush(batch);
+            return failedBatch == null ? batch.size() : 0;
+        }
+
+        List<AuditLog> batch = new ArrayList<>(batchSize);
+        AuditLog entry;
+        while (batch.size() < batchSize && (entry = queue.poll()) != null) {
+            batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        size.addAndGet(-batch.size());
+        batchSummary.record(batch.size());
+        flush(batch);
+        return batch.size();
+    }
+
+    private void flush(List<AuditLog> batch) {
+        try {
+            flushTimer.record(() -> write(batch));
+            failedAttempts = 0;
+        } catch (RuntimeException e) {
+            failedAttempts++;
+            if (failedAttempts >= maxAttempts || !running) {
+                failedCounter.increment(batch.size());
+                log.error("Giving up on {} audit entries after {} failed attempts: {}", batch.size(),
+                        failedAttempts, e.getMessage());
+                failedAttempts = 0;
+                return;
+            }
+            long backoffNanos = Math.min(flushIntervalNanos << Math.min(failedAttempts - 1, 20), maxBackoffNanos);
+            failedBatch = batch;
+            retryAtNanos = System.nanoTime() + backoffNanos;
+            log.warn("Failed to write {} audit entries (attempt {}), retrying in {} ms: {}", batch.size(),
+                    failedAttempts, TimeUnit.NANOSECONDS.toMillis(backoffNanos), e.getMessage());
+        }
+    }
+
+    private void drainLoop() {
+        while (running) {
+            if (drain() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void wakeWriter() {
+        Thread thread = writerThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.BulkRoleUpdateDto;
+import com.eyepax.authservice.dto.BulkRoleUpdateResultDto;
+import com.eyepax.authservice.model.AuditLog;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.repository.UserRoleBatchRepository;
+import com.eyepax.authservice.repository.UserRoleBatchRepository.UserRoles;
+import com.eyepax.authservice.security.PrincipalCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Applies one role operation to many users at once: a single locking read
+ * of the users and their roles, one user_roles delete and one insert
+ * statement and one batched audit write, all in the same transaction.
+ */
+@Service
+public class BulkRoleAssignmentService {
+
+    private final UserRoleBatchRepository userRoleBatchRepository;
+    private final RoleRegistry roleRegistry;
+    private final AuditLogWriter auditLogWriter;
+    private final PrincipalCache principalCache;
+    private final int maxUsers;
+
+    public BulkRoleAssignmentService(UserRoleBatchRepository userRoleBatchRepository,
+            RoleRegistry roleRegistry,
+            AuditLogWriter auditLogWriter,
+            PrincipalCache principalCache,
+            @Value("${auth.admin.bulk-roles.max-users:1000}") int maxUsers) {
+        this.userRoleBatchRepository = userRoleBatchRepository;
+        this.roleRegistry = roleRegistry;
+        this.auditLogWriter = auditLogWriter;
+        this.principalCache = principalCache;
+        this.maxUsers = maxUsers;
+    }
+
+    @Transactional
+    public List<BulkRoleUpdateResultDto> apply(BulkRoleUpdateDto request) {
+        Set<Long> userIds = validate(request);
+        Map<Long, String> requested = new TreeMap<>();
+        for (String name : request.getRoles() == null ? Set.<String>of() : request.getRoles()) {
+            Role role = roleRegistry.find(name).orElseThrow(
+                    () -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown role: " + name));
+            requested.put(role.getId(), role.getName());
+        }
+
+        Map<Long, UserRoles> users = userRoleBatchRepository.lockUsersWithRoles(userIds);
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<AuditLog> auditEntries = new ArrayList<>();
+        List<String> changedSubs = new ArrayList<>();
+        List<BulkRoleUpdateResultDto> results = new ArrayList<>(userIds.size());
+        Instant now = Instant.now();
+
+        for (Long userId : userIds) {
+            UserRoles user = users.get(userId);
+            if (user == null) {
+                results.add(new BulkRoleUpdateResultDto(userId, BulkRoleUpdateResultDto.Status.NOT_FOUND, null));
+                continue;
+            }
+
+            Map<Long, String> target = new TreeMap<>(user.roles());
+            switch (request.getOperation()) {
+                case ADD -> target.putAll(requested);
+                case REMOVE -> target.keySet().removeAll(requested.keySet());
+                case REPLACE -> {
+                    target.clear();
+                    target.putAll(requested);
+                }
+            }
+
+            boolean changed = false;
+            for (Long roleId : target.keySet()) {
+                if (!user.roles().containsKey(roleId)) {
+                    inserts.add(new Object[] { userId, roleId });
+                    changed = true;
+                }
+            }
+            for (Long roleId : user.roles().keySet()) {
+                if (!target.containsKey(roleId)) {
+                    deletes.add(new Object[] { userId, roleId });
+                    changed = true;
+                }
+            }
+
+            Set<String> roleNames = new TreeSet<>(target.values());
+            if (changed) {
+                auditEntries.add(auditEntry(userId, "Roles updated: " + roleNames + " (bulk "
+                        + request.getOperation() + " " + new TreeSet<>(requested.values()) + ")", now));
+                changedSubs.add(user.cognitoSub());
+            }
+            results.add(new BulkRoleUpdateResultDto(userId,
+                    changed ? BulkRoleUpdateResultDto.Status.UPDATED : BulkRoleUpdateResultDto.Status.UNCHANGED,
+                    roleNames));
+        }
+
+        userRoleBatchRepository.delete(deletes);
+        userRoleBatchRepository.insert(inserts);
+        if (!auditEntries.isEmpty()) {
+            auditLogWriter.write(auditEntries);
+        }
+        if (!changedSubs.isEmpty()) {
+            principalCache.invalidateAfterCommit(changedSubs);
+        }
+        return results;
+    }
+
+    private Set<Long> validate(BulkRoleUpdateDto request) {
+        if (request.getOperation() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "operation is required");
+        }
+        if (request.getUserIds() == null || request.getUserIds().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userIds must not be empty");
+        }
+        if (request.getOperation() != BulkRoleUpdateDto.Operation.REPLACE
+                && (request.getRoles() == null || request.getRoles().isEmpty())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "roles must not be empty");
+        }
+        Set<Long> userIds = new LinkedHashSet<>(request.getUserIds());
+        userIds.remove(null);
+        if (userIds.size() > maxUsers) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxUsers + " users per request");
+        }
+        return userIds;
+    }
+
+    private static AuditLog auditEntry(Long userId, String desc, Instant at) {
+        AuditLog entry = new AuditLog();
+        entry.setUserId(userId);
+        entry.setEventType("ROLE_UPDATE");
+        entry.setEventDesc(desc);
+        entry.setCreatedAt(at);
+        return entry;
+    }
+}
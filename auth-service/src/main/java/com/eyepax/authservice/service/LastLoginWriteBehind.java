@@ -0,0 +1,100 @@
+package com.eyepax.authservice.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Coalesces last_login / updated_at bumps in memory and writes them back
+ * periodically as a single multi-row UPDATE per batch, instead of one
+ * UPDATE per authenticated request. Only the latest timestamp per user is
+ * kept between flushes, and anything pending is flushed on shutdown.
+ */
+@Component
+public class LastLoginWriteBehind {
+
+    private static final Logger log = LoggerFactory.getLogger(LastLoginWriteBehind.class);
+
+    private final ConcurrentHashMap<Long, Instant> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public LastLoginWriteBehind(JdbcTemplate jdbcTemplate,
+            @Value("${auth.last-login.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void record(Long userId, Instant loginAt) {
+        if (userId == null || loginAt == null) {
+            return;
+        }
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-interval-ms:10000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Instant>> batch = new ArrayList<>(batchSize);
+        for (Long userId : pending.keySet()) {
+            Instant loginAt = pending.remove(userId);
+            if (loginAt == null) {
+                continue;
+            }
+            batch.add(Map.entry(userId, loginAt));
+            if (batch.size() >= batchSize) {
+                write(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<Map.Entry<Long, Instant>> batch) {
+        StringBuilder sql = new StringBuilder(
+                "UPDATE users AS u SET last_login = v.last_login, updated_at = v.last_login FROM (VALUES ");
+        Object[] args = new Object[batch.size() * 2];
+        for (int i = 0; i < batch.size(); i++) {
+            Map.Entry<Long, Instant> entry = batch.get(i);
+            sql.append(i == 0 ? "" : ", ").append("(?::bigint, ?::timestamptz)");
+            args[i * 2] = entry.getKey();
+            args[i * 2 + 1] = OffsetDateTime.ofInstant(entry.getValue(), ZoneOffset.UTC);
+        }
+        sql.append(") AS v(id, last_login) WHERE u.id = v.id")
+                .append(" AND (u.last_login IS NULL OR u.last_login < v.last_login)");
+
+        try {
+            jdbcTemplate.update(sql.toString(), args);
+        } catch (DataAccessException e) {
+            // Put the timestamps back so the next flush retries them
+            batch.forEach(entry -> record(entry.getKey(), entry.getValue()));
+            log.warn("Failed to flush {} last_login updates: {}", batch.size(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.RoleDto;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.repository.RoleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory copy of the roles catalog. The table is loaded once into an
+ * immutable snapshot and swapped wholesale on refresh, so lookups never hit
+ * the database. Refreshes happen periodically and when a lookup misses
+ * (a role added directly in the database), the latter at most once per
+ * {@code auth.roles.min-refresh-interval}.
+ */
+@Component
+public class RoleRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(RoleRegistry.class);
+
+    private record Snapshot(Map<String, Role> byName, List<RoleDto> roles, String etag, Instant loadedAt) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final Clock clock;
+    private final Duration minRefreshInterval;
+    private final ReentrantLock initLock = new ReentrantLock();
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public RoleRegistry(RoleRepository roleRepository,
+            @Value("${auth.roles.min-refresh-interval:5s}") Duration minRefreshInterval) {
+        this(roleRepository, Clock.systemUTC(), minRefreshInterval);
+    }
+
+    RoleRegistry(RoleRepository roleRepository, Clock clock, Duration minRefreshInterval) {
+        this.roleRepository = roleRepository;
+        this.clock = clock;
+        this.minRefreshInterval = minRefreshInterval;
+    }
+
+    public Optional<Role> find(String name) {
+        Role role = current().byName().get(name);
+        if (role == null && refreshIfStale()) {
+            role = snapshot.byName().get(name);
+        }
+        return Optional.ofNullable(role);
+    }
+
+    /**
+     * Resolves every name in one go; fails on the first unknown role so
+     * callers never assign a partial set.
+     */
+    public Set<Role> resolve(Collection<String> names) {
+        Set<Role> roles = new LinkedHashSet<>();
+        for (String name : names) {
+            roles.add(find(name).orElseThrow(() -> new RuntimeException("Role not found: " + name)));
+        }
+        return roles;
+    }
+
+    public List<RoleDto> all() {
+        return current().roles();
+    }
+
+    // Changes whenever any role's id, name or description changes
+    public String etag() {
+        return current().etag();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.roles.refresh-interval-ms:300000}",
+            initialDelayString = "${auth.roles.refresh-interval-ms:300000}")
+    public void refresh() {
+        try {
+            snapshot = load();
+        } catch (DataAccessException e) {
+            // Keep serving the previous snapshot
+            log.warn("Failed to refresh role registry: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            // A lock rather than synchronized: the first load queries the database
+            // and must not pin a virtual thread to its carrier
+            initLock.lock();
+            try {
+                if (snapshot == null) {
+                    snapshot = load();
+                }
+                s = snapshot;
+            } finally {
+                initLock.unlock();
+            }
+        }
+        return s;
+    }
+
+    private boolean refreshIfStale() {
+        Snapshot s = snapshot;
+        if (Duration.between(s.loadedAt(), clock.instant()).compareTo(minRefreshInterval) < 0) {
+            return false;
+        }
+        refresh();
+        return snapshot != s;
+    }
+
+    private Snapshot load() {
+        List<Role> roles = roleRepository.findAll().stream()
+                .sorted(Comparator.comparing(Role::getName))
+                .toList();
+
+        Map<String, Role> byName = new LinkedHashMap<>();
+        MessageDigest digest = sha256();
+        for (Role role : roles) {
+            byName.put(role.getName(), role);
+            digest.update((role.getId() + "\u0000" + role.getName() + "\u0000" + role.getDescription() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        List<RoleDto> dtos = roles.stream()
+                .map(r -> new RoleDto(r.getId(), r.getName(), r.getDescription()))
+                .toList();
+        String etag = HexFormat.of().formatHex(digest.digest(), 0, 8);
+        return new Snapshot(Map.copyOf(byName), dtos, etag, clock.instant());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.TokenIntrospectionDto;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.security.CachedPrincipal;
+import com.eyepax.authservice.security.PrincipalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Checks tokens on behalf of services that would otherwise have to verify
+ * Cognito JWTs and look up roles themselves. Goes through the same decoder
+ * and principal cache as the resource server, so a token is active here
+ * exactly when it would authenticate against {@code /api}.
+ * <p>
+ * Read-only: unlike a login, checking a token never creates the user. A user
+ * not yet provisioned is active without a user id or roles. Misses are read
+ * from the primary, since the answer goes into the cache the resource server
+ * authorizes with and a lagging replica could put back roles just revoked.
+ * <p>
+ * Nothing is cached here: the decoded token is cached until it expires by
+ * {@code CachingJwtDecoder}, and the user id and roles by
+ * {@code PrincipalCache}, which drops them when roles change. Caching the
+ * whole answer until expiry would keep revoked roles for the token's
+ * lifetime.
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final JwtDecoder jwtDecoder;
+    private final PrincipalCache principalCache;
+    private final UserRepository userRepository;
+    private final int maxTokens;
+    private final Counter activeCounter;
+    private final Counter inactiveCounter;
+
+    public TokenIntrospectionService(JwtDecoder jwtDecoder,
+            PrincipalCache principalCache,
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${auth.introspection.max-tokens:100}") int maxTokens) {
+        this.jwtDecoder = jwtDecoder;
+        this.principalCache = principalCache;
+        this.userRepository = userRepository;
+        this.maxTokens = maxTokens;
+        this.activeCounter = introspections(meterRegistry, "active");
+        this.inactiveCounter = introspections(meterRegistry, "inactive");
+    }
+
+    private static Counter introspections(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.introspection")
+                .description("Tokens checked through the introspection endpoint")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    public TokenIntrospectionDto introspect(String token) {
+        Jwt jwt = decode(token);
+        if (jwt == null || jwt.getSubject() == null) {
+            inactiveCounter.increment();
+            return TokenIntrospectionDto.inactive();
+        }
+
+        CachedPrincipal principal = principalCache.get(jwt.getSubject(), this::findPrincipal);
+        activeCounter.increment();
+        if (principal == null) {
+            return new TokenIntrospectionDto(true, jwt.getSubject(), null, null, jwt.getExpiresAt());
+        }
+        List<String> roles = principal.authorities().stream().map(GrantedAuthority::getAuthority).toList();
+        return new TokenIntrospectionDto(true, jwt.getSubject(), principal.userId(), roles, jwt.getExpiresAt());
+    }
+
+    // Null for an unknown user, which PrincipalCache doesn't cache
+    private CachedPrincipal findPrincipal(String cognitoSub) {
+        return userRepository.findOnPrimaryByCognitoSub(cognitoSub)
+                .map(user -> CachedPrincipal.of(user.getId(),
+                        user.getRoles().stream().map(Role::getName).toList(), user.getVersion()))
+                .orElse(null);
+    }
+
+    // Results in request order, one per token
+    public List<TokenIntrospectionDto> introspectAll(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return List.of();
+        }
+        if (tokens.size() > maxTokens) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxTokens + " tokens per request");
+        }
+        return tokens.stream().map(this::introspect).toList();
+    }
+
+    private Jwt decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            return jwtDecoder.decode(token);
+        } catch (JwtException e) {
+            // Already counted by the decoder as auth.jwt.decode.failures
+            return null;
+        }
+    }
+}
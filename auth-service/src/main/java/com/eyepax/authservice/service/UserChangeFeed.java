@@ -0,0 +1,179 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.UserChangeDto;
+import com.eyepax.authservice.dto.UserChangePageDto;
+import com.eyepax.authservice.repository.UserChangeRepository;
+import com.eyepax.authservice.repository.UserChangeRepository.Change;
+import com.eyepax.authservice.repository.UserChangeRepository.Position;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Long-poll change feed over user_change_outbox (see V8), for services that
+ * keep their own copy of users instead of rescanning the table. A request
+ * gets the changes after its cursor right away, or waits until some arrive
+ * or its wait runs out. Waiting requests hold neither a thread nor a
+ * connection: one scheduled check of the newest position per instance wakes
+ * the ones behind it, however many are waiting.
+ * <p>
+ * Consumers start without a cursor to get the current position, load a
+ * snapshot, then follow from that position. Each change carries the user's
+ * current state and version, so applying only versions newer than the local
+ * copy makes repeats harmless. A cursor whose position was pruned after
+ * {@code auth.user-changes.retention} gets a 410, and the consumer starts
+ * over from a snapshot.
+ */
+@Service
+public class UserChangeFeed {
+
+    public static final int DEFAULT_LIMIT = 500;
+    public static final int MAX_LIMIT = 5000;
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangeFeed.class);
+
+    private final UserChangeRepository userChangeRepository;
+    private final Duration maxWait;
+    private final Duration retention;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public UserChangeFeed(UserChangeRepository userChangeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${auth.user-changes.max-wait:30s}") Duration maxWait,
+            @Value("${auth.user-changes.retention:7d}") Duration retention) {
+        this.userChangeRepository = userChangeRepository;
+        this.maxWait = maxWait;
+        this.retention = retention;
+        Gauge.builder("auth.user-changes.waiting", waiters, Queue::size)
+                .description("Change feed requests waiting for new changes")
+                .register(meterRegistry);
+    }
+
+    public DeferredResult<UserChangePageDto> poll(String cursor, int limit, Duration wait) {
+        if (cursor == null || cursor.isBlank()) {
+            return completed(new UserChangePageDto(List.of(), encodeCursor(userChangeRepository.head())));
+        }
+        Position after = decodeCursor(cursor);
+        if (!after.equals(Position.START) && !userChangeRepository.exists(after)) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Cursor expired; reload and follow from a new one");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        UserChangePageDto page = page(after, userChangeRepository.findAfter(after, pageSize));
+        long timeout = Math.min(Math.max(0, wait.toMillis()), maxWait.toMillis());
+        if (!page.getChanges().isEmpty() || timeout == 0) {
+            return completed(page);
+        }
+
+        // Times out with the empty page, which hands the same cursor back
+        DeferredResult<UserChangePageDto> result = new DeferredResult<>(timeout, () -> page);
+        Waiter waiter = new Waiter(after, pageSize, result);
+        result.onCompletion(() -> waiters.remove(waiter));
+        waiters.add(waiter);
+        return result;
+    }
+
+    public int waiting() {
+        return waiters.size();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.user-changes.poll-interval-ms:1000}")
+    public void wakeWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Position head;
+        try {
+            head = userChangeRepository.head();
+        } catch (DataAccessException e) {
+            log.warn("Checking for user changes failed: {}", e.getMessage());
+            return;
+        }
+
+        // Consumers following the same stream share a cursor, so they share the query too
+        Map<Waiter.Key, List<Waiter>> behind = new LinkedHashMap<>();
+        for (Waiter waiter : waiters) {
+            if (waiter.after().compareTo(head) < 0 && !waiter.result().isSetOrExpired()) {
+                behind.computeIfAbsent(new Waiter.Key(waiter.after(), waiter.limit()), k -> new ArrayList<>())
+                        .add(waiter);
+            }
+        }
+        behind.forEach((key, group) -> {
+            try {
+                UserChangePageDto page = page(key.after(), userChangeRepository.findAfter(key.after(), key.limit()));
+                if (!page.getChanges().isEmpty()) {
+                    group.forEach(waiter -> waiter.result().setResult(page));
+                }
+            } catch (DataAccessException e) {
+                log.warn("Loading user changes failed: {}", e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(cron = "${auth.user-changes.prune-cron:0 45 3 * * *}")
+    public void prune() {
+        try {
+            int pruned = userChangeRepository.prune(retention);
+            if (pruned > 0) {
+                log.info("Pruned {} user changes older than {}", pruned, retention);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Pruning user changes failed: {}", e.getMessage());
+        }
+    }
+
+    private static UserChangePageDto page(Position after, List<Change> changes) {
+        if (changes.isEmpty()) {
+            return new UserChangePageDto(List.of(), encodeCursor(after));
+        }
+        List<UserChangeDto> users = changes.stream().map(Change::user).toList();
+        return new UserChangePageDto(users, encodeCursor(changes.get(changes.size() - 1).position()));
+    }
+
+    private static DeferredResult<UserChangePageDto> completed(UserChangePageDto page) {
+        DeferredResult<UserChangePageDto> result = new DeferredResult<>();
+        result.setResult(page);
+        return result;
+    }
+
+    public static String encodeCursor(Position position) {
+        String value = position.txid() + "|" + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Position decodeCursor(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new Position(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private record Waiter(Position after, int limit, DeferredResult<UserChangePageDto> result) {
+
+        private record Key(Position after, int limit) {
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.UserChangeDto;
+import com.eyepax.authservice.dto.UserLookupResultDto;
+import com.eyepax.authservice.dto.UserSummaryDto;
+import com.eyepax.authservice.repository.UserChangeRepository;
+import com.eyepax.authservice.repository.UserChangeRepository.Change;
+import com.eyepax.authservice.repository.UserChangeRepository.Position;
+import com.eyepax.authservice.repository.UserQueryRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resolves many users by id or Cognito sub at once, for services that would
+ * otherwise look them up one row at a time. Misses are loaded together in
+ * one {@code = ANY(?)} query and cached by id, with a sub index on top.
+ * <p>
+ * Cached entries follow the user change feed (see V8): once a lookup has
+ * cached something, this instance applies new changes every
+ * {@code auth.user-lookup.refresh-interval-ms}, so writes through any
+ * instance or straight to the database show up within about a second.
+ * Entries still expire after {@code auth.user-lookup.cache-ttl} as a
+ * backstop. Loads read the primary: a lagging replica could return a state
+ * older than a change the feed has already applied, and nothing would
+ * correct that entry before it expires.
+ */
+@Service
+public class UserLookupService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserLookupService.class);
+
+    private static final int REFRESH_BATCH = 1000;
+
+    private final UserQueryRepository userQueryRepository;
+    private final UserChangeRepository userChangeRepository;
+    private final Cache<Long, UserSummaryDto> byId;
+    private final Cache<String, Long> idBySub;
+    private final int maxKeys;
+    // Change feed position applied to the cache; null until the first lookup
+    private final AtomicReference<Position> position = new AtomicReference<>();
+    // Shared by loads putting their results, exclusive while refresh() applies changes
+    private final ReentrantReadWriteLock applying = new ReentrantReadWriteLock();
+
+    public UserLookupService(UserQueryRepository userQueryRepository,
+            UserChangeRepository userChangeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${auth.user-lookup.cache-ttl:10m}") Duration ttl,
+            @Value("${auth.user-lookup.cache-max-size:100000}") long maxSize,
+            @Value("${auth.user-lookup.max-keys:5000}") int maxKeys) {
+        this.userQueryRepository = userQueryRepository;
+        this.userChangeRepository = userChangeRepository;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idBySub = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.maxKeys = maxKeys;
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "auth.user-lookup");
+    }
+
+    public UserLookupResultDto lookup(Collection<Long> ids, Collection<String> subs) {
+        Set<Long> wantedIds = distinct(ids);
+        Set<String> wantedSubs = distinct(subs);
+        if (wantedIds.size() + wantedSubs.size() > maxKeys) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxKeys + " ids and subs per request");
+        }
+
+        Map<Long, UserSummaryDto> found = new LinkedHashMap<>(byId.getAllPresent(wantedIds));
+        Map<String, UserSummaryDto> foundBySub = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : idBySub.getAllPresent(wantedSubs).entrySet()) {
+            UserSummaryDto user = byId.getIfPresent(entry.getValue());
+            // The sub may have moved on since it was indexed
+            if (user != null && entry.getKey().equals(user.getSub())) {
+                foundBySub.put(entry.getKey(), user);
+            }
+        }
+
+        List<Long> missingIds = wantedIds.stream().filter(id -> !found.containsKey(id)).toList();
+        List<String> missingSubs = wantedSubs.stream().filter(sub -> !foundBySub.containsKey(sub)).toList();
+        if (!missingIds.isEmpty() || !missingSubs.isEmpty()) {
+            Position loadedAt = follow();
+            List<UserSummaryDto> loaded = userQueryRepository.findSummaries(missingIds, missingSubs);
+            cacheIfCurrent(loadedAt, loaded);
+            for (UserSummaryDto user : loaded) {
+                found.put(user.getId(), user);
+                foundBySub.put(user.getSub(), user);
+            }
+        }
+
+        Map<Long, UserSummaryDto> users = new LinkedHashMap<>();
+        List<Long> notFoundIds = new ArrayList<>();
+        for (Long id : wantedIds) {
+            UserSummaryDto user = found.get(id);
+            if (user == null) {
+                notFoundIds.add(id);
+            } else {
+                users.putIfAbsent(id, user);
+            }
+        }
+        List<String> notFoundSubs = new ArrayList<>();
+        for (String sub : wantedSubs) {
+            UserSummaryDto user = foundBySub.get(sub);
+            if (user == null) {
+                notFoundSubs.add(sub);
+            } else {
+                users.putIfAbsent(user.getId(), user);
+            }
+        }
+        return new UserLookupResultDto(List.copyOf(users.values()), notFoundIds, notFoundSubs);
+    }
+
+    /**
+     * Applies changes since the last refresh to whatever is cached. Users that
+     * aren't cached are skipped rather than added, so a burst of sign-ups
+     * doesn't push out the users being looked up.
+     */
+    @Scheduled(fixedDelayString = "${auth.user-lookup.refresh-interval-ms:1000}")
+    public void refresh() {
+        Position after = position.get();
+        if (after == null) {
+            return;
+        }
+        try {
+            List<Change> changes;
+            do {
+                changes = userChangeRepository.findAfter(after, REFRESH_BATCH);
+                if (changes.isEmpty()) {
+                    break;
+                }
+                after = changes.get(changes.size() - 1).position();
+                applying.writeLock().lock();
+                try {
+                    changes.forEach(change -> apply(change.user()));
+                    position.set(after);
+                } finally {
+                    applying.writeLock().unlock();
+                }
+            } while (changes.size() == REFRESH_BATCH);
+        } catch (DataAccessException e) {
+            log.warn("Following user changes for lookups failed: {}", e.getMessage());
+        }
+    }
+
+    // Changes after the returned position reach the cache through refresh()
+    private Position follow() {
+        if (position.get() == null) {
+            position.compareAndSet(null, userChangeRepository.head());
+        }
+        return position.get();
+    }
+
+    /**
+     * Caches loaded users unless changes were applied while they loaded:
+     * those skipped users that weren't cached yet, so the loaded state may
+     * already be superseded. They are cached by the next lookup instead.
+     */
+    private void cacheIfCurrent(Position loadedAt, List<UserSummaryDto> users) {
+        applying.readLock().lock();
+        try {
+            if (loadedAt.equals(position.get())) {
+                users.forEach(this::cache);
+            }
+        } finally {
+            applying.readLock().unlock();
+        }
+    }
+
+    private void cache(UserSummaryDto user) {
+        byId.asMap().merge(user.getId(), user, UserLookupService::newer);
+        idBySub.put(user.getSub(), user.getId());
+    }
+
+    private void apply(UserChangeDto change) {
+        if (change.isDeleted()) {
+            byId.invalidate(change.getUserId());
+            return;
+        }
+        UserSummaryDto user = new UserSummaryDto(change.getUserId(), change.getCognitoSub(), change.getUsername(),
+                change.getDisplayName(), change.getRoles(), change.getVersion());
+        if (byId.asMap().computeIfPresent(user.getId(), (id, cached) -> newer(cached, user)) != null) {
+            idBySub.put(user.getSub(), user.getId());
+        }
+    }
+
+    // Two loads of the same user may finish in either order
+    private static UserSummaryDto newer(UserSummaryDto cached, UserSummaryDto loaded) {
+        return loaded.getVersion() >= cached.getVersion() ? loaded : cached;
+    }
+
+    private static <T> Set<T> distinct(Collection<T> keys) {
+        Set<T> distinct = new LinkedHashSet<>();
+        if (keys != null) {
+            keys.stream().filter(Objects::nonNull).forEach(distinct::add);
+        }
+        return distinct;
+    }
+}
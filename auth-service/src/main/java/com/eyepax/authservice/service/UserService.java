@@ -1,46 +1,75 @@
 package com.eyepax.authservice.service;
 
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.dto.AuditLogPageDto;
 import com.eyepax.authservice.dto.UpdateUserDto;
 import com.eyepax.authservice.dto.UserDetailDto;
 import com.eyepax.authservice.dto.UserDto;
-import com.eyepax.authservice.model.AuditLog;
-import com.eyepax.authservice.model.Role;
 import com.eyepax.authservice.model.User;
-import com.eyepax.authservice.repository.AuditLogRepository;
-import com.eyepax.authservice.repository.RoleRepository;
+import com.eyepax.authservice.repository.UserQueryRepository;
 import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.security.CachedPrincipal;
+import com.eyepax.authservice.security.PrincipalCache;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class UserService {
 
+    public enum SearchMode {
+        // Case-insensitive substring match on username or email
+        CONTAINS,
+        // Substring and fuzzy matches ranked by trigram similarity
+        TRIGRAM
+    }
+
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
-    private final AuditLogRepository auditLogRepository;
+    private final UserQueryRepository userQueryRepository;
+    private final RoleRegistry roleRegistry;
+    private final AuditLogQueryService auditLogQueryService;
     private final AuditLogService auditLogService;
+    private final PrincipalCache principalCache;
+    private final int minTrigramQueryLength;
+    private final int recentActivity;
 
     public UserService(UserRepository userRepository,
-            RoleRepository roleRepository,
-            AuditLogRepository auditLogRepository,
-            AuditLogService auditLogService) {
+            UserQueryRepository userQueryRepository,
+            RoleRegistry roleRegistry,
+            AuditLogQueryService auditLogQueryService,
+            AuditLogService auditLogService,
+            PrincipalCache principalCache,
+            @Value("${auth.user-search.min-query-length:3}") int minTrigramQueryLength,
+            @Value("${auth.admin.user-detail.recent-activity:20}") int recentActivity) {
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
-        this.auditLogRepository = auditLogRepository;
+        this.userQueryRepository = userQueryRepository;
+        this.roleRegistry = roleRegistry;
+        this.auditLogQueryService = auditLogQueryService;
         this.auditLogService = auditLogService;
+        this.principalCache = principalCache;
+        this.minTrigramQueryLength = minTrigramQueryLength;
+        this.recentActivity = recentActivity;
     }
 
     public UserDto getCurrentUser(Authentication authentication) {
         String cognitoSub = authentication.getName();
-        User user = getUserByCognitoSub(cognitoSub);
+        // A user provisioned by this very request may not have reached the read replica yet
+        User user = userRepository.findByCognitoSub(cognitoSub)
+                .or(() -> userRepository.findOnPrimaryByCognitoSub(cognitoSub))
+                .orElseThrow(() -> new RuntimeException("User not found"));
 
         UserDto dto = new UserDto();
         dto.setId(user.getId());
@@ -48,20 +77,30 @@ public class UserService {
         dto.setEmail(user.getEmail());
         dto.setDisplayName(user.getDisplayName());
         dto.setRoles(user.getRoles().stream().map(r -> r.getName()).collect(Collectors.toSet()));
+        dto.setVersion(user.getVersion());
         return dto;
     }
 
+    // What this instance knows about the caller without a query; null when not cached
+    public CachedPrincipal getCachedPrincipal(Authentication authentication) {
+        return principalCache.getIfPresent(authentication.getName());
+    }
+
     public UserDto updateCurrentUser(Authentication authentication, UpdateUserDto updateDto) {
         String cognitoSub = authentication.getName();
         User user = userRepository.findByCognitoSub(cognitoSub)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (updateDto.getDisplayName() != null)
-            user.setDisplayName(updateDto.getDisplayName());
-        if (updateDto.getUsername() != null)
-            user.setUsername(updateDto.getUsername());
-
-        user = userRepository.save(user);
+        String username = updateDto.getUsername() != null ? updateDto.getUsername() : user.getUsername();
+        String displayName = updateDto.getDisplayName() != null ? updateDto.getDisplayName() : user.getDisplayName();
+        // A no-op PATCH writes nothing, so the version and ETag stay put
+        if (!Objects.equals(username, user.getUsername()) || !Objects.equals(displayName, user.getDisplayName())) {
+            userRepository.updateProfile(user.getId(), username, displayName, Instant.now());
+            user.setUsername(username);
+            user.setDisplayName(displayName);
+            // The cached principal carries the profile version
+            principalCache.invalidateAfterCommit(List.of(cognitoSub));
+        }
 
         UserDto dto = new UserDto();
         dto.setId(user.getId());
@@ -73,51 +112,64 @@ public class UserService {
     }
 
     // List users with pagination and optional search
+    @Transactional(readOnly = true)
     public Page<UserDto> getUsers(int page, int size, String query) {
+        return getUsers(page, size, query, SearchMode.CONTAINS);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<UserDto> getUsers(int page, int size, String query, SearchMode mode) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<User> users = query == null || query.isBlank()
-                ? userRepository.findAll(pageable)
-                : userRepository.findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase(query, query, pageable);
-
-        return users.map(u -> {
-            UserDto dto = new UserDto();
-            dto.setId(u.getId());
-            dto.setUsername(u.getUsername());
-            dto.setEmail(u.getEmail());
-            dto.setDisplayName(u.getDisplayName());
-            dto.setRoles(u.getRoles().stream().map(r -> r.getName()).collect(Collectors.toSet()));
-            return dto;
-        });
+        if (query == null || query.isBlank()) {
+            return userQueryRepository.findPage(pageable);
+        }
+        String term = query.strip().toLowerCase(Locale.ROOT);
+        String pattern = "%" + escapeLike(term) + "%";
+        if (mode != SearchMode.TRIGRAM) {
+            return userQueryRepository.findPageContaining(pattern, pageable);
+        }
+        // Shorter terms have no usable trigrams and would scan the whole table
+        return term.length() < minTrigramQueryLength
+                ? new PageImpl<>(List.of(), pageable, 0)
+                : userQueryRepository.findPageBySimilarity(term, pattern, pageable);
     }
 
-    // Fetch single user + audit logs
+    // Fetch single user + latest audit logs and a per-type summary; older entries are paged through the audit search
+    @Transactional(readOnly = true)
     public UserDetailDto getUserDetails(Long userId) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        List<AuditLog> logs = auditLogRepository.findByUserId(userId);
-        return new UserDetailDto(user, logs);
+        AuditLogPageDto recent = auditLogQueryService.search(new AuditLogFilter(userId, null, null, null, null),
+                null, recentActivity);
+        String next = recent.getNextCursor() == null ? null
+                : "/api/v1/admin/audit-log/search?userId=" + userId + "&cursor=" + recent.getNextCursor();
+        return new UserDetailDto(user, recent.getItems(), auditLogQueryService.countByEventType(userId), next);
     }
 
-    // Update roles
+    // Update roles; one transaction on the primary, so the returned details include this change and its audit entry
+    @Transactional
     public UserDetailDto updateUserRoles(Long userId, Set<String> roleNames) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         // Clear current roles and assign new roles
         user.getRoles().clear();
-        roleNames.forEach(name -> {
-            Role role = roleRepository.findByName(name)
-                    .orElseThrow(() -> new RuntimeException("Role not found: " + name));
-            user.getRoles().add(role);
-        });
+        user.getRoles().addAll(roleRegistry.resolve(roleNames));
         userRepository.save(user);
 
+        // Cached authorities are now stale
+        principalCache.invalidateAfterCommit(List.of(user.getCognitoSub()));
+
         // Record audit log
-        auditLogService.record(user.getId(), "ROLE_UPDATE", "Roles updated: " + roleNames, null);
+        auditLogService.recordNow(user.getId(), "ROLE_UPDATE", "Roles updated: " + roleNames, null);
 
         return getUserDetails(userId);
     }
 
+    static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
     // inside UserService.java
     public User getUserByCognitoSub(String cognitoSub) {
         return userRepository.findByCognitoSub(cognitoSub)
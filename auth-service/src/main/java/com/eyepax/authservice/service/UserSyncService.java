@@ -1,62 +1,207 @@
 package com.eyepax.authservice.service;
 
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.dto.UserSyncDto;
+import com.eyepax.authservice.dto.UserSyncResultDto;
 import com.eyepax.authservice.model.Role;
-import com.eyepax.authservice.model.User;
-import com.eyepax.authservice.repository.RoleRepository;
-import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.repository.UserUpsertRepository;
+import com.eyepax.authservice.repository.UserUpsertRepository.ProvisionedUser;
+import com.eyepax.authservice.repository.UserUpsertRepository.UpsertedUser;
+import com.eyepax.authservice.security.PrincipalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Creates users on first sight and keeps their Cognito profile in sync.
+ * Single-user provisioning is timed as {@code auth.user.provision} (tagged by
+ * path and result) and every new row counts towards {@code auth.user.created};
+ * batch sizes of {@link #syncAll} go to {@code auth.sync.batch.users}.
+ */
 @Service
 public class UserSyncService {
 
-    private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
+    private final UserUpsertRepository userUpsertRepository;
+    private final PrincipalCache principalCache;
+    private final int batchSize;
+    private final int maxUsers;
+    private final ProvisionMeters loginMeters;
+    private final ProvisionMeters bearerMeters;
+    private final Counter syncCreatedCounter;
+    private final DistributionSummary syncBatchSummary;
 
-    public UserSyncService(UserRepository userRepository, RoleRepository roleRepository) {
-        this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+    public UserSyncService(RoleRegistry roleRegistry,
+            UserUpsertRepository userUpsertRepository,
+            PrincipalCache principalCache,
+            MeterRegistry meterRegistry,
+            @Value("${auth.sync.batch-size:500}") int batchSize,
+            @Value("${auth.sync.max-users:5000}") int maxUsers) {
+        this.roleRegistry = roleRegistry;
+        this.userUpsertRepository = userUpsertRepository;
+        this.principalCache = principalCache;
+        this.batchSize = batchSize;
+        this.maxUsers = maxUsers;
+        this.loginMeters = new ProvisionMeters(meterRegistry, "login");
+        this.bearerMeters = new ProvisionMeters(meterRegistry, "bearer");
+        this.syncCreatedCounter = createdCounter(meterRegistry, "sync");
+        this.syncBatchSummary = DistributionSummary.builder("auth.sync.batch.users")
+                .description("Users per bulk sync request")
+                .baseUnit("users")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue((double) Math.max(1, maxUsers))
+                .register(meterRegistry);
     }
 
+    // Sync / login from a client app: creates the user or refreshes their profile and last_login
     @Transactional
-    public User findOrCreateFromCognito(String cognitoSub, String email, String username, String displayName) {
-        Optional<User> existing = userRepository.findByCognitoSub(cognitoSub);
-        if (existing.isPresent()) {
-            User u = existing.get();
-            u.setLastLogin(Instant.now());
-            // optionally update display name/email if changed
-            if (displayName != null) u.setDisplayName(displayName);
-            if (email != null) u.setEmail(email);
-            u.setUpdatedAt(Instant.now());
-
-            // Load roles eagerly
-            u.setRoles(u.getRoles());
-
-            return userRepository.save(u);
+    public UserDto findOrCreateFromCognito(String cognitoSub, String email, String username, String displayName) {
+        UserDto user = provision(new UserSyncDto(cognitoSub, email, username, displayName), true);
+        // The refresh may have changed the profile, and with it the version a cached principal holds
+        principalCache.invalidateAfterCommit(List.of(cognitoSub));
+        return user;
+    }
+
+    // Bearer-token path: creates the user if needed but leaves existing rows alone
+    @Transactional
+    public UserDto findOrCreate(String cognitoSub, String email, String username, String displayName) {
+        return provision(new UserSyncDto(cognitoSub, email, username, displayName), false);
+    }
+
+    private UserDto provision(UserSyncDto profile, boolean refreshProfile) {
+        ProvisionMeters meters = refreshProfile ? loginMeters : bearerMeters;
+        long start = System.nanoTime();
+        try {
+            Instant now = Instant.now();
+            Optional<ProvisionedUser> result = userUpsertRepository.findOrCreate(profile, refreshProfile, now);
+            if (result.isEmpty()) {
+                // A concurrent first login inserted this sub; its row is visible to a new statement
+                result = userUpsertRepository.findOrCreate(profile, refreshProfile, now);
+            }
+            ProvisionedUser user = result.orElseThrow(
+                    () -> new IllegalStateException("Could not find or create user " + profile.getSub()));
+
+            Set<String> roles = user.roles();
+            long version = user.version();
+            if (user.created()) {
+                // default role: USER (optional), on top of whatever the V2 trigger assigned
+                Optional<Role> defaultRole = roleRegistry.find("USER");
+                roles = defaultRole.isPresent()
+                        ? userUpsertRepository.grantRole(user.id(), defaultRole.get().getId())
+                        : userUpsertRepository.findRoleNames(List.of(user.id())).getOrDefault(user.id(), Set.of());
+                // Role grants bumped the version the insert returned
+                version = userUpsertRepository.findVersion(user.id());
+                meters.createdCounter.increment();
+            }
+            (user.created() ? meters.createdTimer : meters.existingTimer)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return new UserDto(user.id(), user.username(), user.email(), user.displayName(), roles, version);
+        } catch (RuntimeException e) {
+            meters.failedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
         }
-        // create user
-        User u = new User();
-        u.setCognitoSub(cognitoSub);
-        u.setEmail(email);
-        u.setUsername(username);
-        u.setDisplayName(displayName);
-        u.setStatus("ACTIVE");
-        u.setCreatedAt(Instant.now());
-        u.setLastLogin(Instant.now());
-
-        // default role: USER (optional)
-        roleRepository.findByName("USER").ifPresent(role -> {
-            Set<Role> roles = new HashSet<>();
-            roles.add(role);
-            u.setRoles(roles);
-        });
-
-        return userRepository.save(u);
-    }
-
-}
\ No newline at end of file
+    }
+
+    /**
+     * Creates or refreshes many users at once, {@code auth.sync.batch-size} per
+     * upsert statement, all in one transaction. New users get the USER role on
+     * top of whatever the database trigger assigns. Results come back in
+     * request order, one per distinct sub (the last entry wins for duplicates).
+     */
+    @Transactional
+    public List<UserSyncResultDto> syncAll(List<UserSyncDto> users) {
+        if (users == null || users.isEmpty()) {
+            return List.of();
+        }
+        if (users.size() > maxUsers) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxUsers + " users per request");
+        }
+        Map<String, UserSyncDto> bySub = new LinkedHashMap<>();
+        for (UserSyncDto user : users) {
+            if (user.getSub() == null || user.getSub().isBlank() || user.getEmail() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "sub and email are required");
+            }
+            bySub.remove(user.getSub());
+            bySub.put(user.getSub(), user);
+        }
+
+        List<UserSyncDto> distinct = new ArrayList<>(bySub.values());
+        syncBatchSummary.record(distinct.size());
+        Instant now = Instant.now();
+        Optional<Role> defaultRole = roleRegistry.find("USER");
+        Map<String, UpsertedUser> upserted = new LinkedHashMap<>();
+        try {
+            for (int i = 0; i < distinct.size(); i += batchSize) {
+                List<UpsertedUser> chunk = userUpsertRepository.upsert(
+                        distinct.subList(i, Math.min(distinct.size(), i + batchSize)), null, now);
+                chunk.forEach(u -> upserted.put(u.sub(), u));
+                defaultRole.ifPresent(role -> userUpsertRepository.assignRole(
+                        chunk.stream().filter(UpsertedUser::created).map(UpsertedUser::id).toList(), role.getId()));
+            }
+        } catch (DuplicateKeyException e) {
+            // The only other unique column is username
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Username already taken by another user", e);
+        }
+
+        syncCreatedCounter.increment(upserted.values().stream().filter(UpsertedUser::created).count());
+        principalCache.invalidateAfterCommit(upserted.keySet());
+        Map<Long, Set<String>> roles = userUpsertRepository.findRoleNames(
+                upserted.values().stream().map(UpsertedUser::id).toList());
+        return distinct.stream()
+                .map(u -> upserted.get(u.getSub()))
+                .map(u -> new UserSyncResultDto(u.id(), u.sub(), u.created(), roles.getOrDefault(u.id(), Set.of())))
+                .toList();
+    }
+
+    private static Counter createdCounter(MeterRegistry meterRegistry, String path) {
+        return Counter.builder("auth.user.created")
+                .description("Users created on first login, first bearer request or bulk sync")
+                .tag("path", path)
+                .register(meterRegistry);
+    }
+
+    private static Timer provisionTimer(MeterRegistry meterRegistry, String path, String result) {
+        return Timer.builder("auth.user.provision")
+                .description("Time taken to find or create a user")
+                .tag("path", path)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(meterRegistry);
+    }
+
+    // path: login (sync endpoint, refreshes the profile) or bearer (first API request)
+    private static final class ProvisionMeters {
+
+        private final Timer existingTimer;
+        private final Timer createdTimer;
+        private final Timer failedTimer;
+        private final Counter createdCounter;
+
+        private ProvisionMeters(MeterRegistry meterRegistry, String path) {
+            this.existingTimer = provisionTimer(meterRegistry, path, "existing");
+            this.createdTimer = provisionTimer(meterRegistry, path, "created");
+            this.failedTimer = provisionTimer(meterRegistry, path, "failure");
+            this.createdCounter = createdCounter(meterRegistry, path);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+-- Keyset pagination walks audit_log by (created_at, id) newest first, so
+-- created_at must always be set
+UPDATE audit_log SET created_at = CURRENT_TIMESTAMP WHERE created_at IS NULL;
+ALTER TABLE audit_log ALTER COLUMN created_at SET NOT NULL;
+
+-- Unfiltered / time-range pages
+CREATE INDEX idx_audit_log_created_at_id ON audit_log (created_at DESC, id DESC);
+
+-- One index per equality filter, each followed by the keyset columns
+CREATE INDEX idx_audit_log_user_created_at_id ON audit_log (user_id, created_at DESC, id DESC);
+CREATE INDEX idx_audit_log_event_type_created_at_id ON audit_log (event_type, created_at DESC, id DESC);
+CREATE INDEX idx_audit_log_ip_address_created_at_id ON audit_log (ip_address, created_at DESC, id DESC);
@@ -0,0 +1,65 @@
+-- Convert audit_log into a table range-partitioned by month on created_at, so
+-- old months can be detached or dropped instead of DELETEd and vacuum/index
+-- work stays proportional to a single month. Partitions are kept up to date
+-- by AuditLogPartitionMaintenance; this migration only covers existing rows
+-- and the next few months.
+
+ALTER TABLE audit_log RENAME TO audit_log_legacy;
+ALTER TABLE audit_log_legacy RENAME CONSTRAINT audit_log_pkey TO audit_log_legacy_pkey;
+DROP INDEX idx_audit_log_created_at_id;
+DROP INDEX idx_audit_log_user_created_at_id;
+DROP INDEX idx_audit_log_event_type_created_at_id;
+DROP INDEX idx_audit_log_ip_address_created_at_id;
+
+-- Keep the existing id sequence (the JPA entity uses it) but detach it from
+-- the legacy table so dropping that table doesn't take it along
+ALTER SEQUENCE audit_log_id_seq OWNED BY NONE;
+ALTER SEQUENCE audit_log_id_seq AS BIGINT;
+
+-- The partition key has to be part of the primary key
+CREATE TABLE audit_log (
+                           id BIGINT NOT NULL DEFAULT nextval('audit_log_id_seq'),
+                           user_id INT REFERENCES users(id) ON DELETE SET NULL,
+                           event_type VARCHAR(50) NOT NULL,
+                           event_desc TEXT,
+                           ip_address VARCHAR(100),
+                           user_agent TEXT,
+                           created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                           PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE audit_log_id_seq OWNED BY audit_log.id;
+
+-- Safety net for rows outside every monthly partition
+CREATE TABLE audit_log_default PARTITION OF audit_log DEFAULT;
+
+-- One partition per month from the oldest existing row up to three months ahead
+DO $$
+DECLARE
+    month_start DATE;
+    last_month DATE := date_trunc('month', CURRENT_DATE + INTERVAL '3 months')::date;
+BEGIN
+    SELECT COALESCE(date_trunc('month', MIN(created_at))::date, date_trunc('month', CURRENT_DATE)::date)
+    INTO month_start
+    FROM audit_log_legacy;
+
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF audit_log FOR VALUES FROM (%L) TO (%L)',
+                       'audit_log_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO audit_log (id, user_id, event_type, event_desc, ip_address, user_agent, created_at)
+SELECT id, user_id, event_type, event_desc, ip_address, user_agent, created_at
+FROM audit_log_legacy;
+
+DROP TABLE audit_log_legacy;
+
+-- Same keyset indexes as V3, now created per partition
+CREATE INDEX idx_audit_log_created_at_id ON audit_log (created_at DESC, id DESC);
+CREATE INDEX idx_audit_log_user_created_at_id ON audit_log (user_id, created_at DESC, id DESC);
+CREATE INDEX idx_audit_log_event_type_created_at_id ON audit_log (event_type, created_at DESC, id DESC);
+CREATE INDEX idx_audit_log_ip_address_created_at_id ON audit_log (ip_address, created_at DESC, id DESC);
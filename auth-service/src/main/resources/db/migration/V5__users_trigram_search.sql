@@ -0,0 +1,7 @@
+-- Trigram indexes for the admin user search. They serve both the ranked
+-- similarity search and substring matches (lower(x) LIKE '%q%'), which
+-- otherwise scan the whole users table.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops);
+CREATE INDEX idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
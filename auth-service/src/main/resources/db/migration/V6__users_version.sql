@@ -0,0 +1,47 @@
+-- Representation version of a user, used for ETags on /me and the admin user
+-- endpoints. Bumped by triggers so every write path (JPA, the JDBC upserts,
+-- bulk role changes, the V2 default-role trigger) is covered: on changes to
+-- the profile columns, and on any insert into or delete from user_roles.
+-- last_login and updated_at are not part of the representation and leave it alone.
+ALTER TABLE users ADD COLUMN version bigint NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION bump_user_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    -- Leave explicit version changes (from the user_roles triggers) alone
+    IF NEW.version = OLD.version
+        AND (NEW.username, NEW.email, NEW.display_name, NEW.status)
+            IS DISTINCT FROM (OLD.username, OLD.email, OLD.display_name, OLD.status) THEN
+        NEW.version := OLD.version + 1;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_users_version
+    BEFORE UPDATE ON users
+    FOR EACH ROW
+    EXECUTE FUNCTION bump_user_version();
+
+-- Statement-level with transition tables, so a bulk role change bumps each
+-- affected user once per statement instead of once per user_roles row
+CREATE OR REPLACE FUNCTION bump_user_version_for_roles()
+RETURNS TRIGGER AS $$
+BEGIN
+    UPDATE users SET version = version + 1
+    WHERE id IN (SELECT user_id FROM changed_roles);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_user_roles_version_insert
+    AFTER INSERT ON user_roles
+    REFERENCING NEW TABLE AS changed_roles
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_user_version_for_roles();
+
+CREATE TRIGGER tr_user_roles_version_delete
+    AFTER DELETE ON user_roles
+    REFERENCING OLD TABLE AS changed_roles
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION bump_user_version_for_roles();
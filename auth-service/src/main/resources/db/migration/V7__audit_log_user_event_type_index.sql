@@ -0,0 +1,5 @@
+-- Per-user activity summary on the admin user detail view (event counts by
+-- type). Lets the GROUP BY run as an index-only scan over the user's entries
+-- instead of visiting every audit_log row they ever generated. The latest
+-- entries themselves come from idx_audit_log_user_created_at_id (V4).
+CREATE INDEX idx_audit_log_user_event_type ON audit_log (user_id, event_type);
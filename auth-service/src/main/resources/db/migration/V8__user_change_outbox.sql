@@ -0,0 +1,85 @@
+-- Outbox of user changes, read by the change feed so other services can keep
+-- a local copy of users instead of rescanning the table. Filled by triggers,
+-- in the writing transaction, so every write path is covered: JPA, the JDBC
+-- upserts, bulk role changes, the V2/V6 triggers and the lambdas that write
+-- users directly. One row per change of users.version (profile or roles,
+-- see V6), per insert and per delete; the feed joins the current state.
+--
+-- Feed order is (txid, id), not id: ids are taken at insert time but become
+-- visible at commit, so a reader resuming after id N could miss a smaller id
+-- committed later. The feed only returns rows of transactions older than the
+-- oldest one still running, and no later commit can sort before those.
+CREATE TABLE user_change_outbox (
+    id bigserial PRIMARY KEY,
+    txid xid8 NOT NULL DEFAULT pg_current_xact_id(),
+    user_id bigint NOT NULL,
+    version bigint NOT NULL,
+    deleted boolean NOT NULL DEFAULT false,
+    created_at timestamptz NOT NULL DEFAULT now()
+);
+
+CREATE INDEX idx_user_change_outbox_position ON user_change_outbox (txid, id);
+CREATE INDEX idx_user_change_outbox_created_at ON user_change_outbox (created_at);
+
+-- cognito_sub is part of the feed, so changing it now bumps the version too
+CREATE OR REPLACE FUNCTION bump_user_version()
+RETURNS TRIGGER AS $$
+BEGIN
+    -- Leave explicit version changes (from the user_roles triggers) alone
+    IF NEW.version = OLD.version
+        AND (NEW.cognito_sub, NEW.username, NEW.email, NEW.display_name, NEW.status)
+            IS DISTINCT FROM (OLD.cognito_sub, OLD.username, OLD.email, OLD.display_name, OLD.status) THEN
+        NEW.version := OLD.version + 1;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Statement-level with transition tables like the V6 role triggers, so bulk
+-- upserts write the outbox in one INSERT per statement
+CREATE OR REPLACE FUNCTION record_user_inserts()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_change_outbox (user_id, version)
+    SELECT id, version FROM new_users;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_user_updates()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_change_outbox (user_id, version)
+    SELECT n.id, n.version
+    FROM new_users n JOIN old_users o ON o.id = n.id
+    WHERE n.version <> o.version;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION record_user_deletes()
+RETURNS TRIGGER AS $$
+BEGIN
+    INSERT INTO user_change_outbox (user_id, version, deleted)
+    SELECT id, version + 1, true FROM old_users;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER tr_users_outbox_insert
+    AFTER INSERT ON users
+    REFERENCING NEW TABLE AS new_users
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION record_user_inserts();
+
+CREATE TRIGGER tr_users_outbox_update
+    AFTER UPDATE ON users
+    REFERENCING OLD TABLE AS old_users NEW TABLE AS new_users
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION record_user_updates();
+
+CREATE TRIGGER tr_users_outbox_delete
+    AFTER DELETE ON users
+    REFERENCING OLD TABLE AS old_users
+    FOR EACH STATEMENT
+    EXECUTE FUNCTION record_user_deletes();
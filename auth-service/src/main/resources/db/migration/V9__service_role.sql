@@ -0,0 +1,6 @@
+-- Role for other services (Go, ASP.NET, lambdas) calling the endpoints that
+-- answer about arbitrary users, such as the batch user lookup. Granted to a
+-- service's account through the admin role endpoints like any other role.
+INSERT INTO roles (name, description)
+VALUES ('Service', 'Backend service calling the user lookup and token introspection endpoints')
+ON CONFLICT (name) DO NOTHING;
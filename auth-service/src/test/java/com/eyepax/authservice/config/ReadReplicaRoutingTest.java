@@ -0,0 +1,148 @@
+package com.eyepax.authservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReadReplicaRoutingTest {
+
+    private DataSource primary;
+    private DataSource replica;
+    private SimpleMeterRegistry meterRegistry;
+    private LazyConnectionDataSourceProxy dataSource;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = dataSource();
+        replica = dataSource();
+        meterRegistry = new SimpleMeterRegistry();
+        ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofMinutes(1), 1000);
+
+        dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(primary, replica, readYourWrites, meterRegistry));
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManager.addListener(readYourWrites);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testReadOnlyTransaction_UsesReplica() throws SQLException {
+        authenticate("sub-1");
+
+        runStatement(readOnly);
+
+        verify(replica).getConnection();
+        verify(primary, never()).getConnection();
+        assertEquals(1.0, reads("replica"));
+    }
+
+    @Test
+    void testReadWriteTransaction_UsesPrimary() throws SQLException {
+        authenticate("sub-1");
+
+        runStatement(readWrite);
+
+        verify(primary).getConnection();
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void testReadOnlyTransaction_AfterOwnWrite_UsesPrimary() throws SQLException {
+        authenticate("sub-1");
+        runStatement(readWrite);
+
+        runStatement(readOnly);
+
+        verify(primary, times(2)).getConnection();
+        verify(replica, never()).getConnection();
+        assertEquals(1.0, reads("primary"));
+    }
+
+    @Test
+    void testReadOnlyTransaction_AfterSomeoneElsesWrite_UsesReplica() throws SQLException {
+        authenticate("sub-1");
+        runStatement(readWrite);
+
+        authenticate("sub-2");
+        runStatement(readOnly);
+
+        verify(replica).getConnection();
+        assertEquals(1.0, reads("replica"));
+    }
+
+    @Test
+    void testReadOnlyTransaction_AfterFailedWrite_UsesReplica() throws SQLException {
+        authenticate("sub-1");
+        assertThrows(IllegalStateException.class, () -> readWrite.executeWithoutResult(status -> {
+            statement();
+            throw new IllegalStateException("rolled back");
+        }));
+
+        runStatement(readOnly);
+
+        verify(replica).getConnection();
+    }
+
+    private void runStatement(TransactionTemplate transaction) {
+        transaction.executeWithoutResult(status -> statement());
+    }
+
+    // The lazy proxy only fetches a physical connection once a statement is created
+    private void statement() {
+        try {
+            DataSourceUtils.getConnection(dataSource).createStatement();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("auth.datasource.reads").tag("target", target).counter().count();
+    }
+
+    private static void authenticate(String sub) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(sub, null, "Employee");
+        authentication.setAuthenticated(true);
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
+    private static DataSource dataSource() throws SQLException {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            Connection connection = mock(Connection.class);
+            when(connection.createStatement()).thenReturn(mock(Statement.class));
+            when(connection.getAutoCommit()).thenReturn(true);
+            return connection;
+        });
+        return dataSource;
+    }
+}
@@ -0,0 +1,59 @@
+package com.eyepax.authservice.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchedulingConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertyPlaceholderAutoConfiguration.class))
+            .withUserConfiguration(SchedulingConfiguration.class, Jobs.class);
+
+    @Test
+    void testPoolSize_OneThreadPerScheduledJob() {
+        contextRunner.run(context -> assertEquals(3, corePoolSize(context)));
+    }
+
+    @Test
+    void testPoolSize_ConfiguredSizeWins() {
+        contextRunner.withPropertyValues("spring.task.scheduling.pool.size=8")
+                .run(context -> assertEquals(8, corePoolSize(context)));
+    }
+
+    // getPoolSize() counts the threads started so far, not the size set
+    private static int corePoolSize(ApplicationContext context) {
+        return context.getBean(ThreadPoolTaskScheduler.class).getScheduledThreadPoolExecutor().getCorePoolSize();
+    }
+
+    @Configuration
+    static class Jobs {
+
+        @Bean
+        ThreadPoolTaskScheduler taskScheduler() {
+            ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+            scheduler.setPoolSize(8);
+            return scheduler;
+        }
+
+        @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+        void flush() {
+        }
+
+        @Scheduled(fixedDelay = 60_000, initialDelay = 60_000)
+        void refresh() {
+        }
+
+        @Scheduled(cron = "0 15 3 * * *")
+        void maintain() {
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package com.eyepax.authservice.controller;
 
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.BulkRoleUpdateDto;
+import com.eyepax.authservice.dto.BulkRoleUpdateResultDto;
+import com.eyepax.authservice.dto.RoleDto;
 import com.eyepax.authservice.dto.RoleUpdateDto;
 import com.eyepax.authservice.dto.UserDetailDto;
 import com.eyepax.authservice.dto.UserDto;
-import com.eyepax.authservice.model.AuditLog;
 import com.eyepax.authservice.model.Role;
 import com.eyepax.authservice.model.User;
+import com.eyepax.authservice.service.BulkRoleAssignmentService;
+import com.eyepax.authservice.service.RoleRegistry;
 import com.eyepax.authservice.service.UserService;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -18,7 +23,12 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.Instant;
 import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,6 +40,12 @@ public class AdminControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private RoleRegistry roleRegistry;
+
+    @Mock
+    private BulkRoleAssignmentService bulkRoleAssignmentService;
+
     @InjectMocks
     private AdminController adminController;
 
@@ -47,36 +63,54 @@ public class AdminControllerTest {
         roleSet.add(role);
 
         user = new User(1L, "cognito-sub-123", "john", "john@example.com", "John Doe",
-                "ACTIVE", null, null, null, roleSet);
+                "ACTIVE", null, null, null, 3L, roleSet);
 
         userDto = new UserDto(1L, "john", "john@example.com", "John Doe", Set.of("USER"));
-        userDetailDto = new UserDetailDto(user, List.of(new AuditLog()));
+        userDetailDto = new UserDetailDto(user,
+                List.of(new AuditLogDto(5L, 1L, "LOGIN", null, null, null, Instant.parse("2024-05-01T10:00:00Z"))),
+                Map.of("LOGIN", 1L), null);
     }
 
     @Test
     public void testListUsersReturnsPagedUsers() {
         Page<UserDto> page = new PageImpl<>(List.of(userDto));
-        when(userService.getUsers(0, 10, "")).thenReturn(page);
+        when(userService.getUsers(0, 10, "", UserService.SearchMode.CONTAINS)).thenReturn(page);
 
-        Page<UserDto> result = adminController.listUsers(0, 10, "");
+        Page<UserDto> result = adminController.listUsers(0, 10, "", UserService.SearchMode.CONTAINS).getBody();
 
         assertThat(result.getContent()).hasSize(1);
         assertThat(result.getContent().get(0).getUsername()).isEqualTo("john");
-        verify(userService, times(1)).getUsers(0, 10, "");
+        verify(userService, times(1)).getUsers(0, 10, "", UserService.SearchMode.CONTAINS);
     }
 
     @Test
     public void testGetUserReturnsUserDetailDto() {
         when(userService.getUserDetails(1L)).thenReturn(userDetailDto);
 
-        UserDetailDto result = adminController.getUser(1L);
+        ResponseEntity<UserDetailDto> response = adminController.getUser(1L);
 
+        UserDetailDto result = response.getBody();
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getUsername()).isEqualTo("john");
         assertThat(result.getRoles()).contains("USER");
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"u1-3-a1.5\"");
         verify(userService, times(1)).getUserDetails(1L);
     }
 
+    @Test
+    public void testListUsersEtagFollowsUserVersions() {
+        UserDto versioned = new UserDto(1L, "john", "john@example.com", "John Doe", Set.of("USER"), 3L);
+        when(userService.getUsers(0, 10, "", UserService.SearchMode.CONTAINS))
+                .thenReturn(new PageImpl<>(List.of(versioned)));
+
+        String etag = adminController.listUsers(0, 10, "", UserService.SearchMode.CONTAINS).getHeaders().getETag();
+        versioned.setVersion(4L);
+        String changed = adminController.listUsers(0, 10, "", UserService.SearchMode.CONTAINS).getHeaders()
+                .getETag();
+
+        assertThat(etag).startsWith("\"").isNotEqualTo(changed);
+    }
+
     @Test
     public void testUpdateRolesCallsUserService() {
         RoleUpdateDto dto = new RoleUpdateDto();
@@ -90,4 +124,44 @@ public class AdminControllerTest {
         verify(userService, times(1)).updateUserRoles(eq(1L), rolesCaptor.capture());
         assertThat(rolesCaptor.getValue()).contains("Admin");
     }
+
+    @Test
+    public void testListRolesReturnsCatalogWithEtag() {
+        when(roleRegistry.etag()).thenReturn("abc");
+        when(roleRegistry.all()).thenReturn(List.of(new RoleDto(1L, "USER", "Default role")));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/admin/roles");
+
+        ResponseEntity<List<RoleDto>> response = adminController.listRoles(
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"abc\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("max-age=300");
+        assertThat(response.getBody()).extracting(RoleDto::getName).containsExactly("USER");
+    }
+
+    @Test
+    public void testListRolesMatchingEtagReturnsNotModified() {
+        when(roleRegistry.etag()).thenReturn("abc");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/admin/roles");
+        request.addHeader("If-None-Match", "\"abc\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        ResponseEntity<List<RoleDto>> response = adminController.listRoles(
+                new ServletWebRequest(request, servletResponse));
+
+        assertThat(response).isNull();
+        assertThat(servletResponse.getStatus()).isEqualTo(304);
+        verify(roleRegistry, never()).all();
+    }
+
+    @Test
+    public void testUpdateRolesInBulkDelegatesToService() {
+        BulkRoleUpdateDto dto = new BulkRoleUpdateDto(List.of(1L, 2L), BulkRoleUpdateDto.Operation.ADD, Set.of("USER"));
+        List<BulkRoleUpdateResultDto> results = List.of(
+                new BulkRoleUpdateResultDto(1L, BulkRoleUpdateResultDto.Status.UPDATED, Set.of("USER")),
+                new BulkRoleUpdateResultDto(2L, BulkRoleUpdateResultDto.Status.NOT_FOUND, null));
+        when(bulkRoleAssignmentService.apply(dto)).thenReturn(results);
+
+        assertThat(adminController.updateRolesInBulk(dto)).isEqualTo(results);
+    }
 }
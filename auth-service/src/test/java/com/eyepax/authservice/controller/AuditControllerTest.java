@@ -1,9 +1,15 @@
 package com.eyepax.authservice.controller;
 
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.dto.AuditLogPageDto;
 import com.eyepax.authservice.model.AuditLog;
 import com.eyepax.authservice.repository.AuditLogRepository;
+import com.eyepax.authservice.service.AuditLogExportService;
+import com.eyepax.authservice.service.AuditLogQueryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -15,6 +21,10 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,6 +36,12 @@ class AuditControllerTest {
     @Mock
     private AuditLogRepository auditLogRepository;
 
+    @Mock
+    private AuditLogQueryService auditLogQueryService;
+
+    @Mock
+    private AuditLogExportService auditLogExportService;
+
     @InjectMocks
     private AuditController auditController;
 
@@ -52,4 +68,44 @@ class AuditControllerTest {
                 .andExpect(jsonPath("$[1].id").value(log2.getId()))
                 .andExpect(jsonPath("$[1].eventType").value("LOGOUT"));
     }
+
+    @Test
+    void testSearchAuditLogs_BindsFiltersAndReturnsPage() throws Exception {
+        AuditLogDto item = new AuditLogDto(5L, 101L, "LOGIN", "User logged in", "127.0.0.1", "JUnit",
+                Instant.parse("2025-03-01T10:00:00Z"));
+        when(auditLogQueryService.search(any(AuditLogFilter.class), eq("abc"), eq(20)))
+                .thenReturn(new AuditLogPageDto(List.of(item), "next"));
+
+        mockMvc.perform(get("/api/v1/admin/audit-log/search")
+                .param("userId", "101")
+                .param("eventType", "LOGIN")
+                .param("from", "2025-03-01T00:00:00Z")
+                .param("cursor", "abc")
+                .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(5))
+                .andExpect(jsonPath("$.nextCursor").value("next"));
+
+        ArgumentCaptor<AuditLogFilter> filter = ArgumentCaptor.forClass(AuditLogFilter.class);
+        verify(auditLogQueryService).search(filter.capture(), eq("abc"), eq(20));
+        assertEquals(101L, filter.getValue().getUserId());
+        assertEquals("LOGIN", filter.getValue().getEventType());
+        assertEquals(Instant.parse("2025-03-01T00:00:00Z"), filter.getValue().getFrom());
+    }
+
+    @Test
+    void testExportAuditLogs_GzippedCsv_SetsDownloadHeaders() throws Exception {
+        mockMvc.perform(get("/api/v1/admin/audit-log/export")
+                .param("format", "CSV")
+                .param("gzip", "true")
+                .param("eventType", "LOGIN"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"audit-log.csv.gz\""));
+
+        ArgumentCaptor<AuditLogFilter> filter = ArgumentCaptor.forClass(AuditLogFilter.class);
+        verify(auditLogExportService).export(filter.capture(), eq(AuditLogExportService.Format.CSV), eq(true), any());
+        assertEquals("LOGIN", filter.getValue().getEventType());
+    }
 }
@@ -0,0 +1,67 @@
+package com.eyepax.authservice.controller;
+
+import com.eyepax.authservice.dto.TokenIntrospectionDto;
+import com.eyepax.authservice.service.TokenIntrospectionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TokenControllerTest {
+
+    @Mock
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @InjectMocks
+    private TokenController tokenController;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        mockMvc = MockMvcBuilders.standaloneSetup(tokenController).build();
+    }
+
+    @Test
+    void testIntrospect_ActiveToken_ReturnsPrincipal() throws Exception {
+        when(tokenIntrospectionService.introspect("abc")).thenReturn(new TokenIntrospectionDto(true, "sub-1", 7L,
+                List.of("Employee"), Instant.parse("2030-01-01T00:00:00Z")));
+
+        mockMvc.perform(post("/api/v1/tokens/introspect")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"token\":\"abc\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.active").value(true))
+                .andExpect(jsonPath("$.sub").value("sub-1"))
+                .andExpect(jsonPath("$.userId").value(7L))
+                .andExpect(jsonPath("$.roles[0]").value("Employee"))
+                .andExpect(jsonPath("$.expiresAt").exists());
+    }
+
+    @Test
+    void testIntrospectAll_InactiveTokenOnlyReportsActive() throws Exception {
+        when(tokenIntrospectionService.introspectAll(List.of("bad")))
+                .thenReturn(List.of(TokenIntrospectionDto.inactive()));
+
+        mockMvc.perform(post("/api/v1/tokens/introspect/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"bad\"]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].active").value(false))
+                .andExpect(jsonPath("$[0].sub").doesNotExist())
+                .andExpect(jsonPath("$[0].roles").doesNotExist());
+    }
+}
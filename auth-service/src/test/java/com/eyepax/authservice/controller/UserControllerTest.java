@@ -1,7 +1,13 @@
 package com.eyepax.authservice.controller;
 
 import com.eyepax.authservice.dto.UpdateUserDto;
+import com.eyepax.authservice.dto.UserChangePageDto;
 import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.dto.UserLookupResultDto;
+import com.eyepax.authservice.dto.UserSummaryDto;
+import com.eyepax.authservice.security.CachedPrincipal;
+import com.eyepax.authservice.service.UserChangeFeed;
+import com.eyepax.authservice.service.UserLookupService;
 import com.eyepax.authservice.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,13 +19,21 @@ import org.springframework.http.MediaType;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -28,6 +42,12 @@ class UserControllerTest {
     @Mock
     private UserService userService;
 
+    @Mock
+    private UserLookupService userLookupService;
+
+    @Mock
+    private UserChangeFeed userChangeFeed;
+
     @Mock
     private Authentication authentication;
 
@@ -63,6 +83,40 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.roles[0]").value("USER"));
     }
 
+    @Test
+    void testGetMe_VersionKnown_SendsEtag() throws Exception {
+        UserDto userDto = new UserDto(1L, "john.doe", "john@example.com", "John Doe", Set.of("USER"), 3L);
+        when(userService.getCurrentUser(authentication)).thenReturn(userDto);
+
+        mockMvc.perform(get("/api/v1/me").principal(authentication))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"u1-3\""))
+                .andExpect(header().string("Cache-Control", "no-cache, private"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    void testGetMe_CachedVersionMatches_NotModifiedWithoutLookup() throws Exception {
+        when(userService.getCachedPrincipal(authentication)).thenReturn(CachedPrincipal.of(1L, List.of("USER"), 3L));
+
+        mockMvc.perform(get("/api/v1/me").principal(authentication).header("If-None-Match", "\"u1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"u1-3\""));
+        verify(userService, never()).getCurrentUser(any());
+    }
+
+    @Test
+    void testGetMe_CachedVersionStale_ReturnsCurrentProfile() throws Exception {
+        when(userService.getCachedPrincipal(authentication)).thenReturn(CachedPrincipal.of(1L, List.of("USER"), 4L));
+        when(userService.getCurrentUser(authentication))
+                .thenReturn(new UserDto(1L, "johnny", "john@example.com", "Johnny", Set.of("USER"), 4L));
+
+        mockMvc.perform(get("/api/v1/me").principal(authentication).header("If-None-Match", "\"u1-3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"u1-4\""))
+                .andExpect(jsonPath("$.username").value("johnny"));
+    }
+
     @Test
     void testUpdateMe_ShouldReturnUpdatedUserDto() throws Exception {
         // Prepare mock input and output
@@ -86,4 +140,30 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.displayName").value("Johnny Doe"))
                 .andExpect(jsonPath("$.roles[0]").value("USER"));
     }
+
+    @Test
+    void testLookupUsers_ReturnsFoundUsersAndMissingKeys() throws Exception {
+        UserSummaryDto user = new UserSummaryDto(1L, "sub-1", "john.doe", "John Doe", Set.of("Employee"), 3L);
+        when(userLookupService.lookup(List.of(1L, 2L), List.of("sub-9")))
+                .thenReturn(new UserLookupResultDto(List.of(user), List.of(2L), List.of("sub-9")));
+
+        mockMvc.perform(post("/api/v1/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1,2],\"subs\":[\"sub-9\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(1L))
+                .andExpect(jsonPath("$.users[0].sub").value("sub-1"))
+                .andExpect(jsonPath("$.users[0].roles[0]").value("Employee"))
+                .andExpect(jsonPath("$.users[0].version").doesNotExist())
+                .andExpect(jsonPath("$.missingIds[0]").value(2L))
+                .andExpect(jsonPath("$.missingSubs[0]").value("sub-9"));
+    }
+
+    @Test
+    void testUserChanges_PassesWaitInSeconds() {
+        DeferredResult<UserChangePageDto> result = new DeferredResult<>();
+        when(userChangeFeed.poll("cursor", 100, Duration.ofSeconds(20))).thenReturn(result);
+
+        assertSame(result, userController.userChanges("cursor", 100, 20));
+    }
 }
@@ -0,0 +1,168 @@
+package com.eyepax.authservice.repository;
+
+import com.eyepax.authservice.dto.UserChangeDto;
+import com.eyepax.authservice.repository.UserChangeRepository.Change;
+import com.eyepax.authservice.repository.UserChangeRepository.Position;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the V8 outbox triggers and the feed queries against a real
+ * PostgreSQL with the Flyway schema. Skipped when Docker isn't available,
+ * except under the postgres Maven profile.
+ */
+@Tag("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+class UserChangeRepositoryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static UserChangeRepository userChangeRepository;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('USER'), ('Employee'), ('Manager')");
+        userChangeRepository = new UserChangeRepository(jdbcTemplate);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("TRUNCATE users CASCADE");
+        jdbcTemplate.update("TRUNCATE user_change_outbox");
+    }
+
+    @Test
+    void testInsert_RecordsUserWithDefaultRole() {
+        long id = insertUser("sub-1");
+
+        List<Change> changes = userChangeRepository.findAfter(Position.START, 100);
+
+        // One for the insert and one for the Employee role from the V2 trigger, both with the current state
+        assertEquals(2, changes.size());
+        UserChangeDto user = changes.get(1).user();
+        assertEquals(id, user.getUserId());
+        assertEquals("sub-1", user.getCognitoSub());
+        assertEquals(Set.of("Employee"), user.getRoles());
+        assertEquals(currentVersion(id), user.getVersion());
+        assertFalse(user.isDeleted());
+        assertEquals(changes.get(1).position(), userChangeRepository.head());
+    }
+
+    @Test
+    void testUpdate_OnlyRepresentationChangesAreRecorded() {
+        long id = insertUser("sub-1");
+        Position head = userChangeRepository.head();
+
+        jdbcTemplate.update("UPDATE users SET last_login = now() WHERE id = ?", id);
+        assertTrue(userChangeRepository.findAfter(head, 100).isEmpty());
+
+        jdbcTemplate.update("UPDATE users SET display_name = 'Renamed' WHERE id = ?", id);
+        List<Change> changes = userChangeRepository.findAfter(head, 100);
+        assertEquals(1, changes.size());
+        assertEquals("Renamed", changes.get(0).user().getDisplayName());
+    }
+
+    @Test
+    void testBulkRoleInsert_OneChangePerUser() {
+        long first = insertUser("sub-1");
+        long second = insertUser("sub-2");
+        Position head = userChangeRepository.head();
+
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id)"
+                + " SELECT u.id, r.id FROM users u, roles r WHERE r.name IN ('USER', 'Manager')");
+
+        List<Change> changes = userChangeRepository.findAfter(head, 100);
+        assertEquals(List.of(first, second), changes.stream().map(c -> c.user().getUserId()).sorted().toList());
+        assertEquals(Set.of("Employee", "Manager", "USER"), changes.get(0).user().getRoles());
+    }
+
+    @Test
+    void testDelete_RecordsDeletion() {
+        long id = insertUser("sub-1");
+        Position head = userChangeRepository.head();
+
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+
+        List<Change> changes = userChangeRepository.findAfter(head, 100);
+        assertEquals(1, changes.size());
+        assertTrue(changes.get(0).user().isDeleted());
+        assertEquals(id, changes.get(0).user().getUserId());
+    }
+
+    @Test
+    void testRunningTransaction_HoldsBackLaterCommits() throws Exception {
+        Position head = userChangeRepository.head();
+        try (Connection slow = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            try (PreparedStatement insert = slow.prepareStatement(
+                    "INSERT INTO users (cognito_sub, email) VALUES ('sub-slow', 'slow@example.com')")) {
+                insert.executeUpdate();
+            }
+
+            // Commits after the slow transaction started writing, so must not be served before it
+            insertUser("sub-fast");
+            assertTrue(userChangeRepository.findAfter(head, 100).isEmpty());
+            assertEquals(head, userChangeRepository.head());
+
+            slow.commit();
+        }
+
+        List<String> subs = userChangeRepository.findAfter(head, 100).stream()
+                .map(c -> c.user().getCognitoSub()).distinct().toList();
+        assertEquals(List.of("sub-slow", "sub-fast"), subs);
+    }
+
+    @Test
+    void testPrune_KeepsNewestChange() {
+        insertUser("sub-1");
+        insertUser("sub-2");
+        jdbcTemplate.update("UPDATE user_change_outbox SET created_at = now() - interval '30 days'");
+        Position head = userChangeRepository.head();
+
+        userChangeRepository.prune(Duration.ofDays(7));
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM user_change_outbox", Integer.class));
+        assertTrue(userChangeRepository.exists(head));
+    }
+
+    private static long insertUser(String sub) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (cognito_sub, username, email) VALUES (?, ?, ?)"
+                + " RETURNING id", Long.class, sub, sub, sub + "@example.com");
+    }
+
+    private static long currentVersion(long id) {
+        return jdbcTemplate.queryForObject("SELECT version FROM users WHERE id = ?", Long.class, id);
+    }
+}
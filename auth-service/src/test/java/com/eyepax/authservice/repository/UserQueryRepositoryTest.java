@@ -0,0 +1,100 @@
+package com.eyepax.authservice.repository;
+
+import com.eyepax.authservice.dto.UserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class UserQueryRepositoryTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private UserQueryRepository userQueryRepository;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        userQueryRepository = new UserQueryRepository(jdbcTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pageReturns(List<UserDto> rows) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenReturn(rows);
+    }
+
+    private static List<UserDto> users(int count) {
+        return Collections.nCopies(count, new UserDto(1L, "john", "john@example.com", "John", Set.of("USER")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindPage_FullPage_RunsPageAndCountQueriesOnly() {
+        pageReturns(users(10));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class))).thenReturn(25L);
+
+        Page<UserDto> page = userQueryRepository.findPage(PageRequest.of(0, 10));
+
+        assertEquals(25, page.getTotalElements());
+        assertEquals(10, page.getContent().size());
+        // One query for users + roles, one for the total; nothing else touches the database
+        verify(jdbcTemplate, times(1)).query(contains("array_agg(r.name"), any(RowMapper.class), any(Object[].class));
+        verify(jdbcTemplate, times(1)).queryForObject(startsWith("SELECT count(*)"), eq(Long.class),
+                any(Object[].class));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindPageContaining_LastPartialPage_SkipsCountQuery() {
+        pageReturns(users(3));
+
+        Page<UserDto> page = userQueryRepository.findPageContaining("%john%", PageRequest.of(2, 10));
+
+        assertEquals(23, page.getTotalElements());
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class),
+                eq(new Object[] { "%john%", "%john%", 10, 20L }));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFindPageBySimilarity_BindsScoreArgsBeforeFilterArgs() {
+        pageReturns(users(10));
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(Object[].class))).thenReturn(11L);
+
+        userQueryRepository.findPageBySimilarity("john", "%john%", PageRequest.of(0, 10));
+
+        verify(jdbcTemplate).query(contains("similarity(lower(u.username), ?)"), any(RowMapper.class),
+                eq(new Object[] { "john", "john", "%john%", "%john%", "john", "john", 10, 0L }));
+        verify(jdbcTemplate).queryForObject(anyString(), eq(Long.class),
+                eq(new Object[] { "%john%", "%john%", "john", "john" }));
+    }
+
+    @Test
+    void testRowMapper_ReadsRoleArray() throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        Array roles = mock(Array.class);
+        when(rs.getLong("id")).thenReturn(7L);
+        when(rs.getString("username")).thenReturn("jane");
+        when(rs.getString("email")).thenReturn("jane@example.com");
+        when(rs.getString("display_name")).thenReturn("Jane");
+        when(rs.getArray("roles")).thenReturn(roles);
+        when(roles.getArray()).thenReturn(new String[] { "Admin", "USER" });
+
+        UserDto dto = UserQueryRepository.ROW_MAPPER.mapRow(rs, 0);
+
+        assertEquals(new UserDto(7L, "jane", "jane@example.com", "Jane", Set.of("Admin", "USER")), dto);
+    }
+}
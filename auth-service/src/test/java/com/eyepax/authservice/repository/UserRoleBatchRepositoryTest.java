@@ -0,0 +1,145 @@
+package com.eyepax.authservice.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the bulk role writes against a real PostgreSQL with the Flyway schema,
+ * where the V6 and V8 statement triggers decide how often a user changes.
+ * Skipped when Docker isn't available, except under the postgres Maven
+ * profile.
+ */
+@Tag("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+class UserRoleBatchRepositoryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static UserRoleBatchRepository userRoleBatchRepository;
+
+    @BeforeAll
+    static void setUpDatabase() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('USER'), ('Employee'), ('Manager')");
+        userRoleBatchRepository = new UserRoleBatchRepository(jdbcTemplate);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("TRUNCATE users CASCADE");
+    }
+
+    @Test
+    void testInsert_BumpsEachUserOnce() {
+        long first = insertUser("sub-1");
+        long second = insertUser("sub-2");
+        long untouched = insertUser("sub-3");
+        Map<Long, Long> before = versions();
+        long outbox = outboxRows();
+
+        userRoleBatchRepository.insert(pairs(List.of(first, second), roleId("USER"), roleId("Manager")));
+
+        Map<Long, Long> after = versions();
+        assertEquals(before.get(first) + 1, after.get(first));
+        assertEquals(before.get(second) + 1, after.get(second));
+        assertEquals(before.get(untouched), after.get(untouched));
+        assertEquals(outbox + 2, outboxRows());
+        assertEquals(Set.of(roleId("Employee"), roleId("USER"), roleId("Manager")),
+                userRoleBatchRepository.lockUsersWithRoles(List.of(first)).get(first).roles().keySet());
+    }
+
+    @Test
+    void testDelete_BumpsEachUserOnce() {
+        long first = insertUser("sub-1");
+        long second = insertUser("sub-2");
+        userRoleBatchRepository.insert(pairs(List.of(first, second), roleId("USER"), roleId("Manager")));
+        Map<Long, Long> before = versions();
+        long outbox = outboxRows();
+
+        userRoleBatchRepository.delete(pairs(List.of(first, second), roleId("USER"), roleId("Manager")));
+
+        Map<Long, Long> after = versions();
+        assertEquals(before.get(first) + 1, after.get(first));
+        assertEquals(before.get(second) + 1, after.get(second));
+        assertEquals(outbox + 2, outboxRows());
+        assertEquals(Set.of(roleId("Employee")),
+                userRoleBatchRepository.lockUsersWithRoles(List.of(second)).get(second).roles().keySet());
+    }
+
+    @Test
+    void testInsert_ExistingAndRepeatedPairsIgnored() {
+        long id = insertUser("sub-1");
+        long employee = roleId("Employee");
+        long manager = roleId("Manager");
+
+        userRoleBatchRepository.insert(List.of(new Object[] { id, employee }, new Object[] { id, manager },
+                new Object[] { id, manager }));
+
+        assertEquals(Set.of(employee, manager),
+                userRoleBatchRepository.lockUsersWithRoles(List.of(id)).get(id).roles().keySet());
+    }
+
+    private static List<Object[]> pairs(List<Long> userIds, long... roleIds) {
+        List<Object[]> pairs = new ArrayList<>();
+        for (Long userId : userIds) {
+            for (long roleId : roleIds) {
+                pairs.add(new Object[] { userId, roleId });
+            }
+        }
+        return pairs;
+    }
+
+    private static long insertUser(String sub) {
+        return jdbcTemplate.queryForObject("INSERT INTO users (cognito_sub, username, email) VALUES (?, ?, ?)"
+                + " RETURNING id", Long.class, sub, sub, sub + "@example.com");
+    }
+
+    private static long roleId(String name) {
+        return jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = ?", Long.class, name);
+    }
+
+    private static Map<Long, Long> versions() {
+        return jdbcTemplate.query("SELECT id, version FROM users", rs -> {
+            Map<Long, Long> versions = new HashMap<>();
+            while (rs.next()) {
+                versions.put(rs.getLong("id"), rs.getLong("version"));
+            }
+            return versions;
+        });
+    }
+
+    private static long outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_change_outbox", Long.class);
+    }
+}
@@ -0,0 +1,84 @@
+package com.eyepax.authservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingJwtDecoderTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-01T12:00:00Z");
+
+    private JwtDecoder delegate;
+    private SimpleMeterRegistry meterRegistry;
+    private CachingJwtDecoder decoder;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(JwtDecoder.class);
+        meterRegistry = new SimpleMeterRegistry();
+        decoder = new CachingJwtDecoder(delegate, 100, meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void testDecode_SameToken_VerifiesOnce() {
+        when(delegate.decode("token-a")).thenReturn(jwt("token-a", NOW.plusSeconds(600)));
+
+        Jwt first = decoder.decode("token-a");
+        Jwt second = decoder.decode("token-a");
+
+        assertSame(first, second);
+        verify(delegate, times(1)).decode("token-a");
+        assertEquals(1, meterRegistry.get("auth.jwt.verify").timer().count());
+    }
+
+    @Test
+    void testDecode_DifferentTokens_AreCachedSeparately() {
+        when(delegate.decode("token-a")).thenReturn(jwt("token-a", NOW.plusSeconds(600)));
+        when(delegate.decode("token-b")).thenReturn(jwt("token-b", NOW.plusSeconds(600)));
+
+        assertEquals("token-a", decoder.decode("token-a").getTokenValue());
+        assertEquals("token-b", decoder.decode("token-b").getTokenValue());
+        assertEquals(2, decoder.estimatedSize());
+    }
+
+    @Test
+    void testDecode_TokenWithoutExpiry_IsNotCached() {
+        Jwt noExpiry = Jwt.withTokenValue("token-a").header("alg", "RS256").claim("sub", "user").build();
+        when(delegate.decode("token-a")).thenReturn(noExpiry);
+
+        decoder.decode("token-a");
+        decoder.decode("token-a");
+
+        verify(delegate, times(2)).decode("token-a");
+    }
+
+    @Test
+    void testDecode_InvalidToken_IsNotCached() {
+        when(delegate.decode("bad")).thenThrow(new BadJwtException("invalid signature"));
+
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+        assertThrows(BadJwtException.class, () -> decoder.decode("bad"));
+
+        verify(delegate, times(2)).decode("bad");
+        assertEquals(0, decoder.estimatedSize());
+    }
+
+    private static Jwt jwt(String token, Instant expiresAt) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .claim("sub", "user")
+                .issuedAt(NOW.minusSeconds(60))
+                .expiresAt(expiresAt)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.eyepax.authservice.security;
+
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.service.LastLoginWriteBehind;
+import com.eyepax.authservice.service.UserSyncService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CustomJwtAuthenticationConverterTest {
+
+    private UserSyncService userSyncService;
+    private PrincipalCache principalCache;
+    private LastLoginWriteBehind lastLoginWriteBehind;
+    private SimpleMeterRegistry meterRegistry;
+    private CustomJwtAuthenticationConverter converter;
+
+    private UserDto user;
+
+    @BeforeEach
+    void setUp() {
+        userSyncService = mock(UserSyncService.class);
+        principalCache = new PrincipalCache(new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+        lastLoginWriteBehind = mock(LastLoginWriteBehind.class);
+        meterRegistry = new SimpleMeterRegistry();
+        converter = new CustomJwtAuthenticationConverter(userSyncService, principalCache,
+                lastLoginWriteBehind, meterRegistry);
+
+        user = new UserDto(7L, "jane@example.com", "jane@example.com", null, Set.of("Admin"));
+
+        when(userSyncService.findOrCreate("sub-123", "jane@example.com", "jane@example.com", null))
+                .thenAnswer(i -> user);
+    }
+
+    @Test
+    void testConvert_MapsRolesToAuthorities() {
+        AbstractAuthenticationToken token = converter.convert(jwt("sub-123"));
+
+        assertEquals("sub-123", token.getName());
+        assertEquals(Set.of("Admin"), authorityNames(token));
+    }
+
+    @Test
+    void testConvert_CachedPrincipal_SkipsDatabase() {
+        converter.convert(jwt("sub-123"));
+        converter.convert(jwt("sub-123"));
+
+        verify(userSyncService, times(1)).findOrCreate(anyString(), any(), any(), any());
+        assertEquals(7L, principalCache.getIfPresent("sub-123").userId());
+        assertEquals(1, convertTimer("loaded", "success").count());
+        assertEquals(1, convertTimer("cached", "success").count());
+    }
+
+    @Test
+    void testConvert_LoadFails_RecordsFailure() {
+        when(userSyncService.findOrCreate(eq("sub-404"), any(), any(), any()))
+                .thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> converter.convert(jwt("sub-404")));
+
+        assertEquals(1, convertTimer("loaded", "failure").count());
+        assertNull(principalCache.getIfPresent("sub-404"));
+    }
+
+    @Test
+    void testConvert_ExistingUser_DefersLastLoginUpdate() {
+        converter.convert(jwt("sub-123"));
+        converter.convert(jwt("sub-123"));
+
+        // The bearer-token path never refreshes the profile; last_login goes through the write-behind
+        verify(userSyncService, never()).findOrCreateFromCognito(any(), any(), any(), any());
+        verify(lastLoginWriteBehind, times(2)).record(eq(7L), any(Instant.class));
+    }
+
+    @Test
+    void testConvert_AfterInvalidate_ReloadsRoles() {
+        converter.convert(jwt("sub-123"));
+
+        user = new UserDto(7L, "jane@example.com", "jane@example.com", null, Set.of("Employee"));
+        principalCache.invalidate("sub-123");
+
+        AbstractAuthenticationToken token = converter.convert(jwt("sub-123"));
+
+        verify(userSyncService, times(2)).findOrCreate(anyString(), any(), any(), any());
+        assertEquals(Set.of("Employee"), authorityNames(token));
+    }
+
+    private Timer convertTimer(String principal, String outcome) {
+        return meterRegistry.get("auth.authentication.convert")
+                .tag("principal", principal)
+                .tag("outcome", outcome)
+                .timer();
+    }
+
+    private static Jwt jwt(String sub) {
+        return Jwt.withTokenValue("token")
+                .header("alg", "RS256")
+                .claim("sub", sub)
+                .claim("email", "jane@example.com")
+                .issuedAt(Instant.now())
+                .expiresAt(Instant.now().plusSeconds(3600))
+                .build();
+    }
+
+    private static Set<String> authorityNames(AbstractAuthenticationToken token) {
+        Set<String> names = new HashSet<>();
+        for (GrantedAuthority authority : token.getAuthorities()) {
+            names.add(authority.getAuthority());
+        }
+        return names;
+    }
+}
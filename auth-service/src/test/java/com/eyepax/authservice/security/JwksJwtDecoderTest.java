@@ -0,0 +1,174 @@
+package com.eyepax.authservice.security;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.RSAKey;
+import com.nimbusds.jose.jwk.gen.RSAKeyGenerator;
+import com.nimbusds.jose.jwk.source.JWKSetCacheRefreshEvaluator;
+import com.nimbusds.jose.jwk.source.JWKSetSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwksJwtDecoderTest {
+
+    private static RSAKey key1;
+    private static RSAKey key2;
+
+    private StubJwkSetSource source;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void generateKeys() throws JOSEException {
+        key1 = new RSAKeyGenerator(2048).keyID("kid-1").generate();
+        key2 = new RSAKeyGenerator(2048).keyID("kid-2").generate();
+    }
+
+    @BeforeEach
+    void setUp() {
+        source = new StubJwkSetSource(new JWKSet(key1.toPublicJWK()));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testDecode_CachesKeysAcrossCalls() throws Exception {
+        JwksJwtDecoder decoder = decoder();
+
+        Jwt first = decoder.decode(sign(key1, "user-1"));
+        Jwt second = decoder.decode(sign(key1, "user-2"));
+
+        assertEquals("user-1", first.getSubject());
+        assertEquals("user-2", second.getSubject());
+        assertEquals(1, source.fetches.get());
+    }
+
+    @Test
+    void testWarmUp_LoadsKeysBeforeFirstDecode() throws Exception {
+        JwksJwtDecoder decoder = decoder();
+
+        assertTrue(decoder.warmUp());
+        decoder.decode(sign(key1, "user-1"));
+
+        assertEquals(1, source.fetches.get());
+    }
+
+    @Test
+    void testDecode_UnknownKid_RefetchesOnceForConcurrentCallers() throws Exception {
+        JwksJwtDecoder decoder = decoder();
+        decoder.warmUp();
+
+        // Key rotation: the issuer starts signing with kid-2
+        source.jwkSet = new JWKSet(List.of(key1.toPublicJWK(), key2.toPublicJWK()));
+        String token = sign(key2, "user-1");
+
+        int callers = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Jwt>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return decoder.decode(token);
+            }));
+        }
+        start.countDown();
+        for (Future<Jwt> result : results) {
+            assertEquals("user-1", result.get().getSubject());
+        }
+        executor.shutdown();
+
+        assertEquals(2, source.fetches.get());
+    }
+
+    @Test
+    void testDecode_KeyNotInSet_IsRejected() throws Exception {
+        JwksJwtDecoder decoder = decoder();
+
+        assertThrows(JwtException.class, () -> decoder.decode(sign(key2, "user-1")));
+        assertEquals(1, meterRegistry.get("auth.jwt.decode.failures").tag("reason", "invalid").counter().count());
+    }
+
+    @Test
+    void testDecode_TimesKeySetFetches() throws Exception {
+        JwksJwtDecoder decoder = decoder();
+
+        decoder.decode(sign(key1, "user-1"));
+        decoder.decode(sign(key1, "user-2"));
+
+        assertEquals(1, meterRegistry.get("auth.jwks.fetch").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void testWithJwkSetUri_LoadsKeysFromLocalFile(@TempDir Path dir) throws Exception {
+        Path jwks = dir.resolve("jwks.json");
+        Files.writeString(jwks, new JWKSet(key1.toPublicJWK()).toString());
+
+        JwksJwtDecoder decoder = JwksJwtDecoder.withJwkSetUri(jwks.toUri().toString(), Duration.ofMinutes(5),
+                Duration.ofSeconds(30), Duration.ofSeconds(5), Duration.ofMillis(1), meterRegistry);
+
+        assertEquals("user-1", decoder.decode(sign(key1, "user-1")).getSubject());
+        decoder.close();
+    }
+
+    private JwksJwtDecoder decoder() {
+        return JwksJwtDecoder.withJwkSetSource(source, Duration.ofMinutes(5), Duration.ofSeconds(30),
+                Duration.ofSeconds(5), Duration.ofMillis(1), meterRegistry);
+    }
+
+    private static String sign(RSAKey key, String subject) throws JOSEException {
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject(subject)
+                .issueTime(new Date())
+                .expirationTime(new Date(System.currentTimeMillis() + 60_000))
+                .build();
+        SignedJWT jwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(key.getKeyID()).build(),
+                claims);
+        jwt.sign(new RSASSASigner(key));
+        return jwt.serialize();
+    }
+
+    private static final class StubJwkSetSource implements JWKSetSource<SecurityContext> {
+
+        private final AtomicInteger fetches = new AtomicInteger();
+        private volatile JWKSet jwkSet;
+
+        private StubJwkSetSource(JWKSet jwkSet) {
+            this.jwkSet = jwkSet;
+        }
+
+        @Override
+        public JWKSet getJWKSet(JWKSetCacheRefreshEvaluator refreshEvaluator, long currentTime,
+                SecurityContext context) {
+            fetches.incrementAndGet();
+            return jwkSet;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
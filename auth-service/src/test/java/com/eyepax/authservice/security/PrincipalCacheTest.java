@@ -0,0 +1,105 @@
+package com.eyepax.authservice.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private PrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new PrincipalCache(new SimpleMeterRegistry(), Duration.ofMinutes(5), 100);
+    }
+
+    @Test
+    void testGet_ConcurrentCallers_LoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<CachedPrincipal> first = executor.submit(() -> cache.get("sub-1", sub -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return CachedPrincipal.of(1L, List.of("Admin"));
+            }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Future<CachedPrincipal> second = executor.submit(() -> cache.get("sub-1", sub -> {
+                loads.incrementAndGet();
+                return CachedPrincipal.of(2L, List.of());
+            }));
+
+            // In-flight loads are not visible as cached entries
+            assertNull(cache.getIfPresent("sub-1"));
+            release.countDown();
+
+            assertEquals(1L, first.get(5, TimeUnit.SECONDS).userId());
+            assertEquals(1L, second.get(5, TimeUnit.SECONDS).userId());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getIfPresent("sub-1").userId());
+    }
+
+    @Test
+    void testGet_LoaderFails_NotCachedAndRetried() {
+        IllegalStateException failure = new IllegalStateException("db down");
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> cache.get("sub-1", sub -> { throw failure; }));
+        assertSame(failure, thrown);
+        assertNull(cache.getIfPresent("sub-1"));
+
+        CachedPrincipal principal = cache.get("sub-1", sub -> CachedPrincipal.of(1L, List.of("Employee")));
+        assertEquals(1L, principal.userId());
+    }
+
+    @Test
+    void testInvalidate_RemovesEntry() {
+        cache.get("sub-1", sub -> CachedPrincipal.of(1L, List.of()));
+
+        cache.invalidate("sub-1");
+
+        assertNull(cache.getIfPresent("sub-1"));
+    }
+
+    @Test
+    void testInvalidateAfterCommit_InTransaction_WaitsForCommit() {
+        cache.get("sub-1", sub -> CachedPrincipal.of(1L, List.of(), 3L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateAfterCommit(List.of("sub-1"));
+            assertEquals(3L, cache.getIfPresent("sub-1").version());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(cache.getIfPresent("sub-1"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.eyepax.authservice.security;
+
+import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.service.AuditLogService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig
+@TestPropertySource(properties = "cognito.jwk-set-uri=http://localhost:9411/.well-known/jwks.json")
+class SecurityConfigurationTest {
+
+    @Configuration
+    @EnableWebMvc
+    @Import(SecurityConfiguration.class)
+    static class Config {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        ClientRegistrationRepository clientRegistrationRepository() {
+            return new InMemoryClientRegistrationRepository(ClientRegistration.withRegistrationId("cognito")
+                    .clientId("test")
+                    .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                    .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                    .authorizationUri("http://localhost:9411/oauth2/authorize")
+                    .tokenUri("http://localhost:9411/oauth2/token")
+                    .build());
+        }
+
+        @Bean
+        ProbeController probeController() {
+            return new ProbeController();
+        }
+    }
+
+    @RestController
+    static class ProbeController {
+
+        @GetMapping({ "/api/v1/probe", "/api/v1/admin/probe", "/probe", "/api/v1/users/lookup",
+                "/api/v1/users/changes", "/api/v1/tokens/introspect" })
+        String probe() {
+            return "ok";
+        }
+
+        @GetMapping("/api/v1/probe/async")
+        DeferredResult<String> asyncProbe() {
+            DeferredResult<String> result = new DeferredResult<>();
+            result.setResult("ok");
+            return result;
+        }
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @MockitoBean
+    private JwksJwtDecoder jwksJwtDecoder;
+
+    @MockitoBean(name = "jwtDecoder")
+    private JwtDecoder jwtDecoder;
+
+    @MockitoBean
+    private CustomJwtAuthenticationConverter customJwtAuthenticationConverter;
+
+    @MockitoBean
+    private CustomLogoutSuccessHandler customLogoutSuccessHandler;
+
+    @MockitoBean
+    private CustomOAuth2LoginSuccessHandler customOAuth2LoginSuccessHandler;
+
+    @MockitoBean
+    private AuditLogService auditLogService;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        Instant now = Instant.now();
+        when(jwtDecoder.decode("token")).thenReturn(jwt("token", "sub-1", now));
+        when(jwtDecoder.decode("service-token")).thenReturn(jwt("service-token", "svc-1", now));
+        when(customJwtAuthenticationConverter.convert(any(Jwt.class))).thenAnswer(invocation -> {
+            String sub = invocation.getArgument(0, Jwt.class).getSubject();
+            return new TestingAuthenticationToken(sub, null, sub.startsWith("svc") ? "Service" : "Employee");
+        });
+    }
+
+    private static Jwt jwt(String token, String sub, Instant now) {
+        return Jwt.withTokenValue(token)
+                .header("alg", "RS256")
+                .subject(sub)
+                .issuedAt(now)
+                .expiresAt(now.plusSeconds(3600))
+                .build();
+    }
+
+    @Test
+    void testApi_BearerToken_NoSession() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/probe").header("Authorization", "Bearer token"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void testApi_AsyncResponse_AuthorizedOnDispatchWithoutSession() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/probe/async").header("Authorization", "Bearer token"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void testApi_NoToken_UnauthorizedWithoutSession() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/probe"))
+                .andExpect(status().isUnauthorized())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void testApi_AdminPathWithoutAdminRole_Forbidden() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/admin/probe").header("Authorization", "Bearer token"))
+                .andExpect(status().isForbidden())
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void testApi_UserLookupWithoutServiceRole_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/users/lookup").header("Authorization", "Bearer token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/users/lookup").header("Authorization", "Bearer service-token"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testApi_UserChangesWithoutServiceRole_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/users/changes").header("Authorization", "Bearer token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/users/changes").header("Authorization", "Bearer service-token"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testApi_TokenIntrospectionWithoutServiceRole_Forbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/tokens/introspect").header("Authorization", "Bearer token"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/v1/tokens/introspect").header("Authorization", "Bearer service-token"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testBrowser_NoSession_RedirectsToLogin() throws Exception {
+        MvcResult result = mockMvc.perform(get("/probe").accept(MediaType.TEXT_HTML))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+
+        assertEquals("http://localhost/oauth2/authorization/cognito", result.getResponse().getRedirectedUrl());
+        // The browser chain keeps the original request to resume it after login
+        assertNotNull(result.getRequest().getSession(false));
+    }
+}
@@ -0,0 +1,88 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.repository.AuditLogQueryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogExportServiceTest {
+
+    private AuditLogQueryRepository auditLogQueryRepository;
+    private AuditLogExportService auditLogExportService;
+    private final AuditLogFilter filter = new AuditLogFilter();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        auditLogQueryRepository = mock(AuditLogQueryRepository.class);
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        auditLogExportService = new AuditLogExportService(auditLogQueryRepository, objectMapper,
+                mock(PlatformTransactionManager.class), 500);
+
+        doAnswer(inv -> {
+            Consumer<AuditLogDto> consumer = inv.getArgument(2);
+            consumer.accept(new AuditLogDto(1L, 7L, "LOGIN", "User logged in", "10.0.0.1", "JUnit",
+                    Instant.parse("2025-03-01T10:00:00Z")));
+            consumer.accept(new AuditLogDto(2L, null, "ROLE_CHANGE", "Roles: \"ADMIN\", USER", "10.0.0.2",
+                    "Mozilla/5.0 (X11, Linux)", Instant.parse("2025-03-01T11:00:00Z")));
+            return null;
+        }).when(auditLogQueryRepository).streamAll(eq(filter), eq(500), any());
+    }
+
+    @Test
+    void testExport_Ndjson_WritesOneObjectPerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        auditLogExportService.export(filter, AuditLogExportService.Format.NDJSON, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{\"id\":1,\"userId\":7,\"eventType\":\"LOGIN\""));
+        assertTrue(lines[0].contains("\"createdAt\":\"2025-03-01T10:00:00Z\""));
+        assertTrue(lines[1].contains("\"eventDesc\":\"Roles: \\\"ADMIN\\\", USER\""));
+    }
+
+    @Test
+    void testExport_Csv_QuotesFieldsThatNeedIt() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        auditLogExportService.export(filter, AuditLogExportService.Format.CSV, false, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("id,user_id,event_type,event_desc,ip_address,user_agent,created_at", lines[0]);
+        assertEquals("1,7,LOGIN,User logged in,10.0.0.1,JUnit,2025-03-01T10:00:00Z", lines[1]);
+        assertEquals("2,,ROLE_CHANGE,\"Roles: \"\"ADMIN\"\", USER\",10.0.0.2,\"Mozilla/5.0 (X11, Linux)\","
+                + "2025-03-01T11:00:00Z", lines[2]);
+    }
+
+    @Test
+    void testExport_Gzip_ProducesCompleteArchive() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        auditLogExportService.export(filter, AuditLogExportService.Format.CSV, true, out);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.startsWith("id,user_id,"));
+            assertEquals(3, csv.split("\n").length);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.eyepax.authservice.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs partition maintenance against a real PostgreSQL with the Flyway
+ * schema, for the DDL the mocked test can't check. Skipped when Docker isn't
+ * available, except under the postgres Maven profile.
+ */
+@Tag("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+class AuditLogPartitionMaintenancePostgresTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testRun_RowsStrandedInDefault_MovedIntoNewPartition() {
+        // Far past the months V4 created, as after a long outage
+        jdbcTemplate.update("INSERT INTO audit_log (event_type, created_at) VALUES"
+                + " ('LOGIN', '2040-05-03 10:00'), ('LOGIN', '2040-05-31 23:59:59'), ('LOGIN', '2040-09-01')");
+        Clock clock = Clock.fixed(Instant.parse("2040-05-15T03:15:00Z"), ZoneOffset.UTC);
+
+        new AuditLogPartitionMaintenance(jdbcTemplate, new DataSourceTransactionManager(dataSource), clock, true, 1,
+                0, AuditLogPartitionMaintenance.RetentionAction.DETACH).run();
+
+        assertEquals(2, count("audit_log_p2040_05"));
+        assertEquals(0, count("audit_log_p2040_06"));
+        // Rows of months still without a partition stay in the reattached default
+        assertEquals(1, count("audit_log_default"));
+        assertEquals(3, count("audit_log"));
+        assertEquals(Boolean.TRUE, jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM pg_inherits i"
+                + " JOIN pg_class c ON c.oid = i.inhrelid WHERE c.relname = 'audit_log_default')", Boolean.class));
+    }
+
+    private static int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table, Integer.class);
+    }
+}
@@ -0,0 +1,137 @@
+package com.eyepax.authservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogPartitionMaintenanceTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2025-11-15T03:15:00Z"), ZoneOffset.UTC);
+
+    private JdbcTemplate jdbcTemplate;
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(jdbcTemplate.queryForObject(eq("SELECT pg_try_advisory_xact_lock(?)"), eq(Boolean.class), any()))
+                .thenReturn(true);
+        when(jdbcTemplate.queryForObject(eq("SELECT to_regclass(?) IS NOT NULL"), eq(Boolean.class), any()))
+                .thenReturn(false);
+    }
+
+    private AuditLogPartitionMaintenance maintenance(int retentionMonths,
+            AuditLogPartitionMaintenance.RetentionAction action) {
+        return new AuditLogPartitionMaintenance(jdbcTemplate, transactionManager, CLOCK, true, 2, retentionMonths,
+                action);
+    }
+
+    @Test
+    void testRun_CreatesMissingPartitionsAcrossYearBoundary() {
+        when(jdbcTemplate.queryForObject(eq("SELECT to_regclass(?) IS NOT NULL"), eq(Boolean.class),
+                eq("audit_log_p2025_11"))).thenReturn(true);
+
+        maintenance(0, AuditLogPartitionMaintenance.RetentionAction.DETACH).run();
+
+        verify(jdbcTemplate).execute("CREATE TABLE audit_log_p2025_12 PARTITION OF audit_log"
+                + " FOR VALUES FROM ('2025-12-01') TO ('2026-01-01')");
+        verify(jdbcTemplate).execute("CREATE TABLE audit_log_p2026_01 PARTITION OF audit_log"
+                + " FOR VALUES FROM ('2026-01-01') TO ('2026-02-01')");
+        verify(jdbcTemplate, never()).execute(contains("audit_log_p2025_11"));
+        // Retention disabled: attached partitions aren't even listed
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @Test
+    void testRun_DetachesOnlyPartitionsOlderThanRetention() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(
+                List.of("audit_log_default", "audit_log_p2025_03", "audit_log_p2025_04", "audit_log_p2025_05"));
+
+        maintenance(6, AuditLogPartitionMaintenance.RetentionAction.DETACH).run();
+
+        // Six full months before November 2025 are kept, starting with May
+        verify(jdbcTemplate).execute("ALTER TABLE audit_log DETACH PARTITION audit_log_p2025_03");
+        verify(jdbcTemplate).execute("ALTER TABLE audit_log DETACH PARTITION audit_log_p2025_04");
+        verify(jdbcTemplate, never()).execute(contains("audit_log_p2025_05"));
+        verify(jdbcTemplate, never()).execute(contains("audit_log_default"));
+    }
+
+    @Test
+    void testRun_DropAction_DropsExpiredPartitions() {
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_log_p2024_01"));
+
+        maintenance(12, AuditLogPartitionMaintenance.RetentionAction.DROP).run();
+
+        verify(jdbcTemplate).execute("DROP TABLE audit_log_p2024_01");
+    }
+
+    @Test
+    void testRun_LockHeldElsewhere_DoesNothing() {
+        when(jdbcTemplate.queryForObject(eq("SELECT pg_try_advisory_xact_lock(?)"), eq(Boolean.class), any()))
+                .thenReturn(false);
+
+        maintenance(6, AuditLogPartitionMaintenance.RetentionAction.DROP).run();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class));
+    }
+
+    @Test
+    void testRun_CreateFails_StillAppliesRetention() {
+        doThrow(new DataAccessResourceFailureException("overlaps default partition"))
+                .when(jdbcTemplate).execute(startsWith("CREATE TABLE"));
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_log_p2024_01"));
+
+        maintenance(12, AuditLogPartitionMaintenance.RetentionAction.DETACH).run();
+
+        verify(jdbcTemplate).execute("ALTER TABLE audit_log DETACH PARTITION audit_log_p2024_01");
+    }
+
+    @Test
+    void testRun_NoTransactionForCreate_StillAppliesRetention() {
+        when(transactionManager.getTransaction(any()))
+                .thenThrow(new CannotCreateTransactionException("Connection is not available"))
+                .thenReturn(null);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class))).thenReturn(List.of("audit_log_p2024_01"));
+
+        maintenance(12, AuditLogPartitionMaintenance.RetentionAction.DETACH).run();
+
+        verify(jdbcTemplate, never()).execute(startsWith("CREATE TABLE"));
+        verify(jdbcTemplate).execute("ALTER TABLE audit_log DETACH PARTITION audit_log_p2024_01");
+    }
+
+    @Test
+    void testRun_RowsAlreadyInDefault_MovedIntoNewPartition() {
+        when(jdbcTemplate.queryForObject(startsWith("SELECT EXISTS (SELECT 1 FROM audit_log_default"),
+                eq(Boolean.class), eq("2025-11-01"), eq("2025-12-01"))).thenReturn(true);
+        when(jdbcTemplate.update(startsWith("INSERT INTO audit_log_p2025_11"))).thenReturn(42);
+
+        maintenance(0, AuditLogPartitionMaintenance.RetentionAction.DETACH).run();
+
+        String range = " WHERE created_at >= '2025-11-01' AND created_at < '2025-12-01'";
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE audit_log DETACH PARTITION audit_log_default");
+        inOrder.verify(jdbcTemplate).execute("CREATE TABLE audit_log_p2025_11 PARTITION OF audit_log"
+                + " FOR VALUES FROM ('2025-11-01') TO ('2025-12-01')");
+        inOrder.verify(jdbcTemplate).update("INSERT INTO audit_log_p2025_11 SELECT * FROM audit_log_default" + range);
+        inOrder.verify(jdbcTemplate).update("DELETE FROM audit_log_default" + range);
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE audit_log ATTACH PARTITION audit_log_default DEFAULT");
+        // Months with nothing stranded are created directly
+        verify(jdbcTemplate, times(1)).execute("ALTER TABLE audit_log DETACH PARTITION audit_log_default");
+        verify(jdbcTemplate).execute("CREATE TABLE audit_log_p2025_12 PARTITION OF audit_log"
+                + " FOR VALUES FROM ('2025-12-01') TO ('2026-01-01')");
+    }
+}
@@ -0,0 +1,74 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.dto.AuditLogPageDto;
+import com.eyepax.authservice.repository.AuditLogQueryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogQueryServiceTest {
+
+    private AuditLogQueryRepository auditLogQueryRepository;
+    private AuditLogQueryService auditLogQueryService;
+
+    @BeforeEach
+    void setUp() {
+        auditLogQueryRepository = mock(AuditLogQueryRepository.class);
+        auditLogQueryService = new AuditLogQueryService(auditLogQueryRepository);
+    }
+
+    @Test
+    void testSearch_MoreRowsThanPage_ReturnsCursorForLastItem() {
+        AuditLogFilter filter = new AuditLogFilter(1L, null, null, null, null);
+        when(auditLogQueryRepository.findPage(filter, null, null, 3)).thenReturn(rows(3));
+
+        AuditLogPageDto page = auditLogQueryService.search(filter, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertNotNull(page.getNextCursor());
+
+        // The cursor resumes strictly after the last returned row
+        AuditLogDto last = page.getItems().get(1);
+        when(auditLogQueryRepository.findPage(filter, last.getCreatedAt(), last.getId(), 3)).thenReturn(rows(1));
+
+        AuditLogPageDto next = auditLogQueryService.search(filter, page.getNextCursor(), 2);
+
+        assertEquals(1, next.getItems().size());
+        assertNull(next.getNextCursor());
+    }
+
+    @Test
+    void testSearch_PageSizeIsCapped() {
+        when(auditLogQueryRepository.findPage(any(), any(), any(), anyInt())).thenReturn(List.of());
+
+        auditLogQueryService.search(new AuditLogFilter(), null, 10_000);
+
+        verify(auditLogQueryRepository).findPage(any(), isNull(), isNull(), eq(AuditLogQueryService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void testSearch_InvalidCursor_IsBadRequest() {
+        assertThrows(ResponseStatusException.class,
+                () -> auditLogQueryService.search(new AuditLogFilter(), "not-a-cursor", 10));
+        verifyNoInteractions(auditLogQueryRepository);
+    }
+
+    private static List<AuditLogDto> rows(int count) {
+        List<AuditLogDto> rows = new ArrayList<>();
+        Instant createdAt = Instant.parse("2025-03-01T10:00:00.123456Z");
+        for (int i = 0; i < count; i++) {
+            rows.add(new AuditLogDto(100L - i, 1L, "LOGIN", null, null, null, createdAt.minusSeconds(i)));
+        }
+        return rows;
+    }
+}
@@ -1,8 +1,7 @@
 package com.eyepax.authservice.service;
 
 import com.eyepax.authservice.model.AuditLog;
-import com.eyepax.authservice.repository.AuditLogRepository;
-import com.eyepax.authservice.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,12 +15,10 @@ import static org.junit.jupiter.api.Assertions.*;
 class AuditLogServiceTest {
 
     private AuditLogService auditLogService;
+    private SimpleMeterRegistry meterRegistry;
 
     @Mock
-    private AuditLogRepository auditLogRepository;
-
-    @Mock
-    private UserRepository userRepository;
+    private AuditLogWriter auditLogWriter;
 
     @Mock
     private HttpServletRequest httpServletRequest;
@@ -29,11 +26,12 @@ class AuditLogServiceTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        auditLogService = new AuditLogService(auditLogRepository, userRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        auditLogService = new AuditLogService(auditLogWriter, meterRegistry);
     }
 
     @Test
-    void testRecord_WithNullRequest_ShouldSaveAuditLog() {
+    void testRecord_WithNullRequest_ShouldSubmitAuditLog() {
         Long userId = 1L;
         String eventType = "LOGIN";
         String eventDesc = "User logged in";
@@ -41,7 +39,7 @@ class AuditLogServiceTest {
         auditLogService.record(userId, eventType, eventDesc, null);
 
         ArgumentCaptor<AuditLog> captor = ArgumentCaptor.forClass(AuditLog.class);
-        verify(auditLogRepository, times(1)).save(captor.capture());
+        verify(auditLogWriter, times(1)).submit(captor.capture());
         AuditLog savedLog = captor.getValue();
 
         assertEquals(userId, savedLog.getUserId());
@@ -49,10 +47,11 @@ class AuditLogServiceTest {
         assertEquals(eventDesc, savedLog.getEventDesc());
         assertNull(savedLog.getIpAddress());
         assertNull(savedLog.getUserAgent());
+        assertNotNull(savedLog.getCreatedAt());
     }
 
     @Test
-    void testRecord_WithHttpServletRequest_ShouldSaveAuditLogWithIpAndUserAgent() {
+    void testRecord_WithHttpServletRequest_ShouldSubmitAuditLogWithIpAndUserAgent() {
         Long userId = 2L;
         String eventType = "LOGOUT";
         String eventDesc = "User logged out";
@@ -63,7 +62,7 @@ class AuditLogServiceTest {
         auditLogService.record(userId, eventType, eventDesc, httpServletRequest);
 
         ArgumentCaptor<AuditLog> captor = ArgumentCaptor.forClass(AuditLog.class);
-        verify(auditLogRepository, times(1)).save(captor.capture());
+        verify(auditLogWriter, times(1)).submit(captor.capture());
         AuditLog savedLog = captor.getValue();
 
         assertEquals(userId, savedLog.getUserId());
@@ -72,4 +71,25 @@ class AuditLogServiceTest {
         assertEquals("192.168.1.1", savedLog.getIpAddress());
         assertEquals("JUnit-Agent", savedLog.getUserAgent());
     }
+
+    @Test
+    void testRecord_CountsEventsByType() {
+        auditLogService.record(1L, "LOGIN", "User logged in", null);
+        auditLogService.record(2L, "LOGIN", "User logged in", null);
+        auditLogService.record(1L, "LOGOUT", "User logged out", null);
+
+        assertEquals(2, meterRegistry.get("auth.audit.events").tag("event_type", "LOGIN").counter().count());
+        assertEquals(1, meterRegistry.get("auth.audit.events").tag("event_type", "LOGOUT").counter().count());
+        assertEquals(3, meterRegistry.get("auth.audit.record").timer().count());
+    }
+
+    @Test
+    void testRecordNow_WritesOnCallerThreadWithoutQueueing() {
+        auditLogService.recordNow(1L, "ROLE_UPDATE", "Roles updated: [Admin]", null);
+
+        verify(auditLogWriter, times(1)).write(argThat(entries -> entries.size() == 1
+                && entries.get(0).getEventType().equals("ROLE_UPDATE") && entries.get(0).getCreatedAt() != null));
+        verify(auditLogWriter, never()).submit(any());
+        assertEquals(1, meterRegistry.get("auth.audit.events").tag("event_type", "ROLE_UPDATE").counter().count());
+    }
 }
@@ -0,0 +1,153 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.model.AuditLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.util.Collection;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class AuditLogWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void testSubmit_QueuesAndDrainsInOneBatch() {
+        AuditLogWriter writer = startedWriter(10, AuditLogWriter.OverflowPolicy.SYNC);
+
+        writer.submit(entry("LOGIN"));
+        writer.submit(entry("LOGOUT"));
+        assertEquals(2, writer.queueDepth());
+        verifyNoInteractions(jdbcTemplate);
+
+        assertEquals(2, writer.drain());
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((Collection<AuditLog> c) -> c.size() == 2),
+                eq(2), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0, writer.queueDepth());
+        assertEquals(1, meterRegistry.get("auth.audit.flush").timer().count());
+    }
+
+    @Test
+    void testSubmit_QueueFull_DropPolicy_CountsDroppedEntry() {
+        AuditLogWriter writer = startedWriter(1, AuditLogWriter.OverflowPolicy.DROP);
+
+        writer.submit(entry("LOGIN"));
+        writer.submit(entry("LOGIN"));
+
+        assertEquals(1, writer.queueDepth());
+        assertEquals(1.0, meterRegistry.get("auth.audit.dropped").counter().count());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testSubmit_QueueFull_SyncPolicy_WritesOnCallerThread() {
+        AuditLogWriter writer = startedWriter(1, AuditLogWriter.OverflowPolicy.SYNC);
+
+        writer.submit(entry("LOGIN"));
+        writer.submit(entry("ROLE_UPDATE"));
+
+        assertEquals(1, writer.queueDepth());
+        assertEquals(1.0, meterRegistry.get("auth.audit.sync.fallback").counter().count());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), argThat((Collection<AuditLog> c) -> c.size() == 1),
+                eq(1), any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testSubmit_NotStarted_WritesSynchronously() {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, meterRegistry, 10, 10, 1000,
+                AuditLogWriter.OverflowPolicy.DROP, 3, 30_000, Thread::new);
+
+        writer.submit(entry("LOGIN"));
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), eq(1),
+                any(ParameterizedPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testDrain_WriteFailure_RetriedWithBackoffNotCounted() {
+        AuditLogWriter writer = startedWriter(10, AuditLogWriter.OverflowPolicy.SYNC, 60_000);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("db down"));
+
+        writer.submit(entry("LOGIN"));
+        assertEquals(1, writer.drain());
+        writer.submit(entry("LOGOUT"));
+
+        // Nothing is written or taken from the queue until the backoff has passed
+        assertEquals(0, writer.drain());
+        assertEquals(1, writer.queueDepth());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(0.0, meterRegistry.get("auth.audit.write.failures").counter().count());
+    }
+
+    @Test
+    void testDrain_WriteRecovers_FailedBatchWrittenBeforeNewEntries() {
+        AuditLogWriter writer = startedWriter(10, AuditLogWriter.OverflowPolicy.SYNC, 0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("db down"))
+                .thenReturn(new int[][] { { 1 } });
+
+        writer.submit(entry("LOGIN"));
+        writer.drain();
+        writer.submit(entry("LOGOUT"));
+
+        assertEquals(1, writer.drain());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(),
+                argThat((Collection<AuditLog> c) -> c.size() == 1 && c.iterator().next().getEventType().equals("LOGIN")),
+                eq(1), any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1, writer.queueDepth());
+        assertEquals(0.0, meterRegistry.get("auth.audit.write.failures").counter().count());
+    }
+
+    @Test
+    void testDrain_AllAttemptsFail_CountedAsLost() {
+        AuditLogWriter writer = startedWriter(10, AuditLogWriter.OverflowPolicy.SYNC, 0);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("db down"));
+
+        writer.submit(entry("LOGIN"));
+        writer.drain();
+        writer.drain();
+        assertEquals(0.0, meterRegistry.get("auth.audit.write.failures").counter().count());
+        writer.drain();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(anyString(), anyList(), anyInt(),
+                any(ParameterizedPreparedStatementSetter.class));
+        assertEquals(1.0, meterRegistry.get("auth.audit.write.failures").counter().count());
+    }
+
+    // The writer thread is never started so tests drain deterministically
+    private AuditLogWriter startedWriter(int capacity, AuditLogWriter.OverflowPolicy policy) {
+        return startedWriter(capacity, policy, 30_000);
+    }
+
+    private AuditLogWriter startedWriter(int capacity, AuditLogWriter.OverflowPolicy policy, long maxBackoffMs) {
+        AuditLogWriter writer = new AuditLogWriter(jdbcTemplate, meterRegistry, capacity, 10, 1000, policy, 3,
+                maxBackoffMs, runnable -> new Thread(() -> {
+                }));
+        writer.start();
+        return writer;
+    }
+
+    private static AuditLog entry(String eventType) {
+        AuditLog log = new AuditLog();
+        log.setUserId(1L);
+        log.setEventType(eventType);
+        return log;
+    }
+}
@@ -0,0 +1,121 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.BulkRoleUpdateDto;
+import com.eyepax.authservice.dto.BulkRoleUpdateResultDto;
+import com.eyepax.authservice.model.AuditLog;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.repository.UserRoleBatchRepository;
+import com.eyepax.authservice.repository.UserRoleBatchRepository.UserRoles;
+import com.eyepax.authservice.security.PrincipalCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BulkRoleAssignmentServiceTest {
+
+    private UserRoleBatchRepository userRoleBatchRepository;
+    private RoleRegistry roleRegistry;
+    private AuditLogWriter auditLogWriter;
+    private PrincipalCache principalCache;
+    private BulkRoleAssignmentService service;
+
+    @BeforeEach
+    void setUp() {
+        userRoleBatchRepository = mock(UserRoleBatchRepository.class);
+        roleRegistry = mock(RoleRegistry.class);
+        auditLogWriter = mock(AuditLogWriter.class);
+        principalCache = mock(PrincipalCache.class);
+        service = new BulkRoleAssignmentService(userRoleBatchRepository, roleRegistry, auditLogWriter,
+                principalCache, 3);
+
+        when(roleRegistry.find("USER")).thenReturn(Optional.of(new Role(1L, "USER", null, null)));
+        when(roleRegistry.find("Admin")).thenReturn(Optional.of(new Role(2L, "Admin", null, null)));
+        when(userRoleBatchRepository.lockUsersWithRoles(any())).thenReturn(Map.of(
+                10L, user(10L, "sub-10", Map.of(1L, "USER")),
+                11L, user(11L, "sub-11", Map.of(1L, "USER", 2L, "Admin"))));
+    }
+
+    private static UserRoles user(Long id, String sub, Map<Long, String> roles) {
+        return new UserRoles(id, sub, new TreeMap<>(roles));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testApply_Add_InsertsOnlyMissingRolesInOneBatch() {
+        List<BulkRoleUpdateResultDto> results = service.apply(
+                new BulkRoleUpdateDto(List.of(10L, 11L, 12L), BulkRoleUpdateDto.Operation.ADD, Set.of("Admin")));
+
+        assertEquals(List.of(
+                new BulkRoleUpdateResultDto(10L, BulkRoleUpdateResultDto.Status.UPDATED, Set.of("Admin", "USER")),
+                new BulkRoleUpdateResultDto(11L, BulkRoleUpdateResultDto.Status.UNCHANGED, Set.of("Admin", "USER")),
+                new BulkRoleUpdateResultDto(12L, BulkRoleUpdateResultDto.Status.NOT_FOUND, null)), results);
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(userRoleBatchRepository).insert(inserts.capture());
+        assertEquals(1, inserts.getValue().size());
+        assertArrayEquals(new Object[] { 10L, 2L }, inserts.getValue().get(0));
+        verify(userRoleBatchRepository).delete(List.of());
+
+        ArgumentCaptor<List<AuditLog>> audit = ArgumentCaptor.forClass(List.class);
+        verify(auditLogWriter, times(1)).write(audit.capture());
+        assertEquals(1, audit.getValue().size());
+        assertEquals(10L, audit.getValue().get(0).getUserId());
+        assertEquals("ROLE_UPDATE", audit.getValue().get(0).getEventType());
+
+        verify(principalCache).invalidateAfterCommit(List.of("sub-10"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testApply_Replace_DeletesAndInsertsDifferences() {
+        List<BulkRoleUpdateResultDto> results = service.apply(
+                new BulkRoleUpdateDto(List.of(11L, 10L), BulkRoleUpdateDto.Operation.REPLACE, Set.of("Admin")));
+
+        assertEquals(Set.of("Admin"), results.get(0).getRoles());
+        assertEquals(Set.of("Admin"), results.get(1).getRoles());
+
+        ArgumentCaptor<List<Object[]>> deletes = ArgumentCaptor.forClass(List.class);
+        verify(userRoleBatchRepository).delete(deletes.capture());
+        assertEquals(2, deletes.getValue().size());
+        assertArrayEquals(new Object[] { 11L, 1L }, deletes.getValue().get(0));
+        assertArrayEquals(new Object[] { 10L, 1L }, deletes.getValue().get(1));
+
+        ArgumentCaptor<List<Object[]>> inserts = ArgumentCaptor.forClass(List.class);
+        verify(userRoleBatchRepository).insert(inserts.capture());
+        assertEquals(1, inserts.getValue().size());
+        assertArrayEquals(new Object[] { 10L, 2L }, inserts.getValue().get(0));
+    }
+
+    @Test
+    void testApply_NothingChanges_SkipsAuditAndCache() {
+        service.apply(new BulkRoleUpdateDto(List.of(10L), BulkRoleUpdateDto.Operation.REMOVE, Set.of("Admin")));
+
+        verify(auditLogWriter, never()).write(any());
+        verifyNoInteractions(principalCache);
+    }
+
+    @Test
+    void testApply_InvalidRequests_RejectedBeforeTouchingDatabase() {
+        assertThrows(ResponseStatusException.class, () -> service.apply(
+                new BulkRoleUpdateDto(List.of(10L), BulkRoleUpdateDto.Operation.ADD, Set.of("Nope"))));
+        assertThrows(ResponseStatusException.class, () -> service.apply(
+                new BulkRoleUpdateDto(List.of(), BulkRoleUpdateDto.Operation.ADD, Set.of("USER"))));
+        assertThrows(ResponseStatusException.class, () -> service.apply(
+                new BulkRoleUpdateDto(List.of(1L, 2L, 3L, 4L), BulkRoleUpdateDto.Operation.ADD, Set.of("USER"))));
+        assertThrows(ResponseStatusException.class, () -> service.apply(
+                new BulkRoleUpdateDto(List.of(1L), BulkRoleUpdateDto.Operation.REMOVE, Set.of())));
+
+        verifyNoInteractions(userRoleBatchRepository);
+    }
+}
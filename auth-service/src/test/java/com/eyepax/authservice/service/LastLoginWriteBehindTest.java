@@ -0,0 +1,74 @@
+package com.eyepax.authservice.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LastLoginWriteBehindTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private LastLoginWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        writeBehind = new LastLoginWriteBehind(jdbcTemplate, 2);
+    }
+
+    @Test
+    void testRecord_SameUser_KeepsLatestTimestamp() {
+        Instant earlier = Instant.parse("2025-01-01T10:00:00Z");
+        Instant later = Instant.parse("2025-01-01T10:05:00Z");
+
+        writeBehind.record(1L, later);
+        writeBehind.record(1L, earlier);
+        writeBehind.flush();
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate, times(1)).update(anyString(), args.capture());
+        assertArrayEquals(new Object[] { 1L, OffsetDateTime.ofInstant(later, ZoneOffset.UTC) }, args.getValue());
+        assertEquals(0, writeBehind.pendingCount());
+    }
+
+    @Test
+    void testFlush_SplitsIntoConfiguredBatchSize() {
+        Instant now = Instant.now();
+        writeBehind.record(1L, now);
+        writeBehind.record(2L, now);
+        writeBehind.record(3L, now);
+
+        writeBehind.flush();
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).update(sql.capture(), any(Object[].class));
+        assertTrue(sql.getAllValues().get(0).contains("FROM (VALUES (?::bigint, ?::timestamptz), (?::bigint, ?::timestamptz))"));
+    }
+
+    @Test
+    void testFlush_NothingPending_DoesNotTouchDatabase() {
+        writeBehind.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testFlush_Failure_KeepsTimestampsForNextFlush() {
+        when(jdbcTemplate.update(anyString(), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("db down"));
+
+        writeBehind.record(1L, Instant.now());
+        writeBehind.flush();
+
+        assertEquals(1, writeBehind.pendingCount());
+    }
+}
@@ -0,0 +1,79 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RoleRegistryTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Role USER = new Role(1L, "USER", "Default role", null);
+    private static final Role ADMIN = new Role(2L, "Admin", "Administrators", null);
+
+    private RoleRepository roleRepository;
+    private Clock clock;
+    private RoleRegistry roleRegistry;
+
+    @BeforeEach
+    void setUp() {
+        roleRepository = mock(RoleRepository.class);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(NOW);
+        roleRegistry = new RoleRegistry(roleRepository, clock, Duration.ofSeconds(5));
+        when(roleRepository.findAll()).thenReturn(List.of(USER, ADMIN));
+    }
+
+    @Test
+    void testResolve_LoadsCatalogOnceForAllLookups() {
+        assertEquals(Set.of(USER, ADMIN), roleRegistry.resolve(List.of("USER", "Admin")));
+        assertEquals(USER, roleRegistry.find("USER").orElseThrow());
+        assertEquals(2, roleRegistry.all().size());
+
+        verify(roleRepository, times(1)).findAll();
+        verify(roleRepository, never()).findByName(anyString());
+    }
+
+    @Test
+    void testResolve_UnknownRole_Throws() {
+        RuntimeException ex = assertThrows(RuntimeException.class,
+                () -> roleRegistry.resolve(List.of("USER", "Nope")));
+
+        assertEquals("Role not found: Nope", ex.getMessage());
+    }
+
+    @Test
+    void testFind_MissAfterMinInterval_RefreshesAndPicksUpNewRole() {
+        Role employee = new Role(3L, "Employee", null, null);
+        String etagBefore = roleRegistry.etag();
+        when(roleRepository.findAll()).thenReturn(List.of(USER, ADMIN, employee));
+
+        // Too soon after the initial load: no extra query
+        assertTrue(roleRegistry.find("Employee").isEmpty());
+        verify(roleRepository, times(1)).findAll();
+
+        when(clock.instant()).thenReturn(NOW.plusSeconds(6));
+
+        assertEquals(employee, roleRegistry.find("Employee").orElseThrow());
+        assertNotEquals(etagBefore, roleRegistry.etag());
+        verify(roleRepository, times(2)).findAll();
+    }
+
+    @Test
+    void testEtag_StableForSameCatalog() {
+        String etag = roleRegistry.etag();
+
+        roleRegistry.refresh();
+
+        assertEquals(etag, roleRegistry.etag());
+    }
+}
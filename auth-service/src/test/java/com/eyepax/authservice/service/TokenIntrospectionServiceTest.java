@@ -0,0 +1,151 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.TokenIntrospectionDto;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.model.User;
+import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.security.CachedPrincipal;
+import com.eyepax.authservice.security.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.jwt.BadJwtException;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TokenIntrospectionServiceTest {
+
+    private static final Instant EXPIRES_AT = Instant.parse("2030-01-01T00:00:00Z");
+
+    private JwtDecoder jwtDecoder;
+    private PrincipalCache principalCache;
+    private UserRepository userRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private TokenIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        jwtDecoder = mock(JwtDecoder.class);
+        userRepository = mock(UserRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        principalCache = new PrincipalCache(meterRegistry, Duration.ofMinutes(5), 100);
+        service = new TokenIntrospectionService(jwtDecoder, principalCache, userRepository, meterRegistry, 3);
+    }
+
+    @Test
+    void testIntrospect_ValidToken_ReturnsPrincipal() {
+        Jwt jwt = jwt("sub-1");
+        when(jwtDecoder.decode("good")).thenReturn(jwt);
+        when(userRepository.findOnPrimaryByCognitoSub("sub-1")).thenReturn(Optional.of(user(7L, "Employee", "Admin")));
+
+        TokenIntrospectionDto result = service.introspect("good");
+
+        assertTrue(result.isActive());
+        assertEquals("sub-1", result.getSub());
+        assertEquals(7L, result.getUserId());
+        assertEquals(List.of("Employee", "Admin"), result.getRoles());
+        assertEquals(EXPIRES_AT, result.getExpiresAt());
+        assertEquals(1, meterRegistry.counter("auth.introspection", "result", "active").count());
+
+        // Cached for the resource server and the next check
+        assertEquals(7L, principalCache.getIfPresent("sub-1").userId());
+        service.introspect("good");
+        verify(userRepository, times(1)).findOnPrimaryByCognitoSub("sub-1");
+    }
+
+    @Test
+    void testIntrospect_CachedPrincipal_NoLookup() {
+        when(jwtDecoder.decode("good")).thenReturn(jwt("sub-1"));
+        principalCache.get("sub-1", sub -> CachedPrincipal.of(7L, List.of("Employee")));
+
+        TokenIntrospectionDto result = service.introspect("good");
+
+        assertEquals(7L, result.getUserId());
+        assertEquals(List.of("Employee"), result.getRoles());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testIntrospect_UnknownUser_ActiveWithoutRolesAndNotCreated() {
+        when(jwtDecoder.decode("new")).thenReturn(jwt("sub-new"));
+        when(userRepository.findOnPrimaryByCognitoSub("sub-new")).thenReturn(Optional.empty());
+
+        TokenIntrospectionDto result = service.introspect("new");
+
+        assertTrue(result.isActive());
+        assertEquals("sub-new", result.getSub());
+        assertNull(result.getUserId());
+        assertNull(result.getRoles());
+        assertNull(principalCache.getIfPresent("sub-new"));
+        verify(userRepository, never()).save(any());
+    }
+
+    @Test
+    void testIntrospect_RejectedToken_InactiveWithoutLookup() {
+        when(jwtDecoder.decode("expired")).thenThrow(new BadJwtException("Jwt expired"));
+
+        TokenIntrospectionDto result = service.introspect("expired");
+
+        assertEquals(TokenIntrospectionDto.inactive(), result);
+        assertEquals(TokenIntrospectionDto.inactive(), service.introspect(" "));
+        verify(jwtDecoder, never()).decode(" ");
+        verifyNoInteractions(userRepository);
+        assertEquals(2, meterRegistry.counter("auth.introspection", "result", "inactive").count());
+    }
+
+    @Test
+    void testIntrospectAll_KeepsRequestOrder() {
+        Jwt jwt = jwt("sub-1");
+        when(jwtDecoder.decode("good")).thenReturn(jwt);
+        when(jwtDecoder.decode("bad")).thenThrow(new BadJwtException("Invalid signature"));
+        when(userRepository.findOnPrimaryByCognitoSub("sub-1")).thenReturn(Optional.of(user(7L, "Employee")));
+
+        List<TokenIntrospectionDto> results = service.introspectAll(List.of("bad", "good", "bad"));
+
+        assertEquals(List.of(false, true, false), results.stream().map(TokenIntrospectionDto::isActive).toList());
+        assertTrue(service.introspectAll(null).isEmpty());
+    }
+
+    @Test
+    void testIntrospectAll_TooManyTokens_BadRequest() {
+        ResponseStatusException thrown = assertThrows(ResponseStatusException.class,
+                () -> service.introspectAll(Collections.nCopies(4, "token")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, thrown.getStatusCode());
+        verify(jwtDecoder, never()).decode(any());
+    }
+
+    private static User user(Long id, String... roleNames) {
+        User user = new User();
+        user.setId(id);
+        user.setRoles(new LinkedHashSet<>());
+        for (String roleName : roleNames) {
+            Role role = new Role();
+            role.setName(roleName);
+            user.getRoles().add(role);
+        }
+        return user;
+    }
+
+    private static Jwt jwt(String sub) {
+        return Jwt.withTokenValue("token-" + sub)
+                .header("alg", "RS256")
+                .subject(sub)
+                .issuedAt(EXPIRES_AT.minusSeconds(3600))
+                .expiresAt(EXPIRES_AT)
+                .build();
+    }
+}
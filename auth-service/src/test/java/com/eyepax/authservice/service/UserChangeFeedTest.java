@@ -0,0 +1,124 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.UserChangeDto;
+import com.eyepax.authservice.dto.UserChangePageDto;
+import com.eyepax.authservice.repository.UserChangeRepository;
+import com.eyepax.authservice.repository.UserChangeRepository.Change;
+import com.eyepax.authservice.repository.UserChangeRepository.Position;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class UserChangeFeedTest {
+
+    private static final Position AFTER = new Position(100, 7);
+    private static final Duration WAIT = Duration.ofSeconds(30);
+
+    private UserChangeRepository userChangeRepository;
+    private UserChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        userChangeRepository = mock(UserChangeRepository.class);
+        feed = new UserChangeFeed(userChangeRepository, new SimpleMeterRegistry(), WAIT, Duration.ofDays(7));
+        when(userChangeRepository.exists(AFTER)).thenReturn(true);
+    }
+
+    @Test
+    void testPoll_NoCursor_ReturnsCurrentPosition() {
+        when(userChangeRepository.head()).thenReturn(new Position(120, 9));
+
+        UserChangePageDto page = result(feed.poll(null, 500, WAIT));
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(UserChangeFeed.encodeCursor(new Position(120, 9)), page.getNextCursor());
+        verify(userChangeRepository, never()).findAfter(any(), anyInt());
+    }
+
+    @Test
+    void testPoll_ChangesAvailable_ReturnsThemWithCursorAfterLast() {
+        when(userChangeRepository.findAfter(AFTER, 500)).thenReturn(List.of(
+                change(new Position(101, 8), 1L), change(new Position(101, 9), 2L)));
+
+        UserChangePageDto page = result(feed.poll(UserChangeFeed.encodeCursor(AFTER), 500, WAIT));
+
+        assertEquals(List.of(1L, 2L), page.getChanges().stream().map(UserChangeDto::getUserId).toList());
+        assertEquals(UserChangeFeed.encodeCursor(new Position(101, 9)), page.getNextCursor());
+        assertEquals(0, feed.waiting());
+    }
+
+    @Test
+    void testPoll_NoChanges_WaitsUntilHeadMovesPastCursor() {
+        when(userChangeRepository.findAfter(AFTER, 500)).thenReturn(List.of());
+
+        DeferredResult<UserChangePageDto> first = feed.poll(UserChangeFeed.encodeCursor(AFTER), 500, WAIT);
+        DeferredResult<UserChangePageDto> second = feed.poll(UserChangeFeed.encodeCursor(AFTER), 500, WAIT);
+        assertFalse(first.hasResult());
+        assertEquals(2, feed.waiting());
+
+        when(userChangeRepository.head()).thenReturn(AFTER);
+        feed.wakeWaiters();
+        assertFalse(first.hasResult());
+
+        when(userChangeRepository.head()).thenReturn(new Position(102, 10));
+        when(userChangeRepository.findAfter(AFTER, 500)).thenReturn(List.of(change(new Position(102, 10), 3L)));
+        feed.wakeWaiters();
+
+        assertEquals(3L, result(first).getChanges().get(0).getUserId());
+        assertEquals(3L, result(second).getChanges().get(0).getUserId());
+        // Both waiters follow the same cursor, so one query served them
+        verify(userChangeRepository, times(3)).findAfter(AFTER, 500);
+    }
+
+    @Test
+    void testPoll_NoChangesAndNoWait_ReturnsSameCursor() {
+        when(userChangeRepository.findAfter(AFTER, 500)).thenReturn(List.of());
+
+        UserChangePageDto page = result(feed.poll(UserChangeFeed.encodeCursor(AFTER), 500, Duration.ZERO));
+
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(UserChangeFeed.encodeCursor(AFTER), page.getNextCursor());
+        assertEquals(0, feed.waiting());
+    }
+
+    @Test
+    void testPoll_PrunedCursor_Gone() {
+        Position pruned = new Position(50, 1);
+        when(userChangeRepository.exists(pruned)).thenReturn(false);
+
+        ResponseStatusException thrown = assertThrows(ResponseStatusException.class,
+                () -> feed.poll(UserChangeFeed.encodeCursor(pruned), 500, WAIT));
+
+        assertEquals(HttpStatus.GONE, thrown.getStatusCode());
+    }
+
+    @Test
+    void testPoll_MalformedCursor_BadRequest() {
+        ResponseStatusException thrown = assertThrows(ResponseStatusException.class,
+                () -> feed.poll("not-a-cursor", 500, WAIT));
+
+        assertEquals(HttpStatus.BAD_REQUEST, thrown.getStatusCode());
+    }
+
+    private static Change change(Position position, Long userId) {
+        return new Change(position, new UserChangeDto(userId, "sub-" + userId, "user" + userId,
+                "user" + userId + "@example.com", null, "ACTIVE", Set.of("Employee"), 1L, false));
+    }
+
+    private static UserChangePageDto result(DeferredResult<UserChangePageDto> result) {
+        assertTrue(result.hasResult());
+        return (UserChangePageDto) result.getResult();
+    }
+}
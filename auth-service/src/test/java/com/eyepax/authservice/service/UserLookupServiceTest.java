@@ -0,0 +1,127 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.UserChangeDto;
+import com.eyepax.authservice.dto.UserLookupResultDto;
+import com.eyepax.authservice.dto.UserSummaryDto;
+import com.eyepax.authservice.repository.UserChangeRepository;
+import com.eyepax.authservice.repository.UserChangeRepository.Change;
+import com.eyepax.authservice.repository.UserChangeRepository.Position;
+import com.eyepax.authservice.repository.UserQueryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class UserLookupServiceTest {
+
+    private static final Position HEAD = new Position(100, 7);
+
+    private UserQueryRepository userQueryRepository;
+    private UserChangeRepository userChangeRepository;
+    private UserLookupService userLookupService;
+
+    @BeforeEach
+    void setUp() {
+        userQueryRepository = mock(UserQueryRepository.class);
+        userChangeRepository = mock(UserChangeRepository.class);
+        userLookupService = new UserLookupService(userQueryRepository, userChangeRepository,
+                new SimpleMeterRegistry(), Duration.ofMinutes(10), 1000, 10);
+        when(userChangeRepository.head()).thenReturn(HEAD);
+        when(userChangeRepository.findAfter(any(), anyInt())).thenReturn(List.of());
+    }
+
+    @Test
+    void testLookup_IdsAndSubs_LoadedInOneQuery() {
+        when(userQueryRepository.findSummaries(List.of(1L, 2L), List.of("sub-3", "sub-9")))
+                .thenReturn(List.of(user(1L, 1L), user(3L, 1L)));
+
+        UserLookupResultDto result = userLookupService.lookup(List.of(1L, 2L, 1L), List.of("sub-3", "sub-9"));
+
+        assertEquals(List.of(1L, 3L), result.getUsers().stream().map(UserSummaryDto::getId).toList());
+        assertEquals(List.of(2L), result.getMissingIds());
+        assertEquals(List.of("sub-9"), result.getMissingSubs());
+        verify(userQueryRepository, times(1)).findSummaries(any(), any());
+    }
+
+    @Test
+    void testLookup_Cached_NoQuery() {
+        when(userQueryRepository.findSummaries(List.of(1L), List.of())).thenReturn(List.of(user(1L, 1L)));
+        userLookupService.lookup(List.of(1L), null);
+
+        // Same user by id and by sub comes back once
+        UserLookupResultDto result = userLookupService.lookup(List.of(1L), List.of("sub-1"));
+
+        assertEquals(1, result.getUsers().size());
+        assertTrue(result.getMissingIds().isEmpty());
+        assertTrue(result.getMissingSubs().isEmpty());
+        verify(userQueryRepository, times(1)).findSummaries(any(), any());
+    }
+
+    @Test
+    void testLookup_TooManyKeys_BadRequest() {
+        List<Long> ids = List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L);
+
+        ResponseStatusException thrown = assertThrows(ResponseStatusException.class,
+                () -> userLookupService.lookup(ids, List.of("a", "b", "c")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, thrown.getStatusCode());
+        verifyNoInteractions(userQueryRepository);
+    }
+
+    @Test
+    void testRefresh_AppliesNewerChangesToCachedUsers() {
+        when(userQueryRepository.findSummaries(List.of(1L, 2L), List.of()))
+                .thenReturn(List.of(user(1L, 1L), user(2L, 1L)));
+        userLookupService.lookup(List.of(1L, 2L), null);
+
+        when(userChangeRepository.findAfter(HEAD, 1000)).thenReturn(List.of(
+                change(new Position(101, 8), 1L, "Renamed", 2L, false),
+                change(new Position(101, 9), 2L, null, 2L, true),
+                change(new Position(101, 10), 4L, "Not cached", 1L, false)));
+        userLookupService.refresh();
+
+        when(userQueryRepository.findSummaries(List.of(2L, 4L), List.of())).thenReturn(List.of());
+        UserLookupResultDto result = userLookupService.lookup(List.of(1L, 2L, 4L), null);
+
+        assertEquals("Renamed", result.getUsers().get(0).getDisplayName());
+        // The deleted user is looked up again and found missing; the uncached one was never added
+        assertEquals(List.of(2L, 4L), result.getMissingIds());
+        verify(userChangeRepository, never()).findAfter(new Position(101, 10), 1000);
+    }
+
+    @Test
+    void testLookup_ChangesAppliedWhileLoading_NotCached() {
+        when(userQueryRepository.findSummaries(List.of(1L), List.of())).thenAnswer(invocation -> {
+            // A change to the user lands between reading the feed position and the query
+            when(userChangeRepository.findAfter(HEAD, 1000))
+                    .thenReturn(List.of(change(new Position(101, 8), 1L, "Renamed", 2L, false)));
+            userLookupService.refresh();
+            return List.of(user(1L, 1L));
+        });
+
+        userLookupService.lookup(List.of(1L), null);
+        userLookupService.lookup(List.of(1L), null);
+
+        verify(userQueryRepository, times(2)).findSummaries(List.of(1L), List.of());
+    }
+
+    private static UserSummaryDto user(Long id, Long version) {
+        return new UserSummaryDto(id, "sub-" + id, "user" + id, "User " + id, Set.of("Employee"), version);
+    }
+
+    private static Change change(Position position, Long userId, String displayName, Long version,
+            boolean deleted) {
+        return new Change(position, new UserChangeDto(userId, "sub-" + userId, "user" + userId,
+                "user" + userId + "@example.com", displayName, "ACTIVE", Set.of("Employee"), version, deleted));
+    }
+}
@@ -1,21 +1,22 @@
 package com.eyepax.authservice.service;
 
+import com.eyepax.authservice.dto.AuditLogDto;
+import com.eyepax.authservice.dto.AuditLogFilter;
+import com.eyepax.authservice.dto.AuditLogPageDto;
 import com.eyepax.authservice.dto.UpdateUserDto;
 import com.eyepax.authservice.dto.UserDetailDto;
 import com.eyepax.authservice.dto.UserDto;
-import com.eyepax.authservice.model.AuditLog;
 import com.eyepax.authservice.model.Role;
 import com.eyepax.authservice.model.User;
-import com.eyepax.authservice.repository.AuditLogRepository;
-import com.eyepax.authservice.repository.RoleRepository;
+import com.eyepax.authservice.repository.UserQueryRepository;
 import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.security.PrincipalCache;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -25,6 +26,7 @@ import org.springframework.data.domain.PageRequest;
 
 import org.springframework.security.core.Authentication;
 
+import java.time.Instant;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -37,26 +39,35 @@ class UserServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private RoleRepository roleRepository;
+    private UserQueryRepository userQueryRepository;
 
     @Mock
-    private AuditLogRepository auditLogRepository;
+    private RoleRegistry roleRegistry;
+
+    @Mock
+    private AuditLogQueryService auditLogQueryService;
 
     @Mock
     private AuditLogService auditLogService;
 
+    @Mock
+    private PrincipalCache principalCache;
+
     @Mock
     private Authentication authentication;
 
-    @InjectMocks
     private UserService userService;
 
     private User mockUser;
     private Role mockRole;
-    private AuditLog mockAuditLog;
+    private AuditLogDto mockAuditLog;
+    private UserDto mockUserDto;
 
     @BeforeEach
     void setup() {
+        userService = new UserService(userRepository, userQueryRepository, roleRegistry, auditLogQueryService,
+                auditLogService, principalCache, 3, 20);
+
         mockRole = new Role();
         mockRole.setId(1L);
         mockRole.setName("EMPLOYEE");
@@ -69,11 +80,10 @@ class UserServiceTest {
         mockUser.setCognitoSub("abc123");
         mockUser.setRoles(new HashSet<>(Set.of(mockRole)));
 
-        mockAuditLog = new AuditLog();
-        mockAuditLog.setId(1L);
-        mockAuditLog.setUserId(mockUser.getId());
-        mockAuditLog.setEventType("LOGIN");
-        mockAuditLog.setEventDesc("User logged in");
+        mockUserDto = new UserDto(1L, "john.doe", "john@example.com", "John Doe", Set.of("EMPLOYEE"));
+
+        mockAuditLog = new AuditLogDto(1L, mockUser.getId(), "LOGIN", "User logged in", null, null,
+                Instant.parse("2024-05-01T10:00:00Z"));
     }
 
     // ==================== getCurrentUser ====================
@@ -93,6 +103,20 @@ class UserServiceTest {
         assertTrue(dto.getRoles().contains("EMPLOYEE"));
     }
 
+    @Test
+    @DisplayName("getCurrentUser falls back to the primary for a user the replica has not seen yet")
+    void getCurrentUser_missingOnReplica_readsPrimary() {
+        mockUser.setVersion(2L);
+        when(authentication.getName()).thenReturn("abc123");
+        when(userRepository.findByCognitoSub("abc123")).thenReturn(Optional.empty());
+        when(userRepository.findOnPrimaryByCognitoSub("abc123")).thenReturn(Optional.of(mockUser));
+
+        UserDto dto = userService.getCurrentUser(authentication);
+
+        assertEquals(1L, dto.getId());
+        assertEquals(2L, dto.getVersion());
+    }
+
     @Test
     @DisplayName("getCurrentUser throws exception if user not found")
     void getCurrentUser_throwsIfUserNotFound() {
@@ -110,7 +134,7 @@ class UserServiceTest {
     void updateCurrentUser_updatesAndReturnsUpdatedUserDto() {
         when(authentication.getName()).thenReturn("abc123");
         when(userRepository.findByCognitoSub("abc123")).thenReturn(Optional.of(mockUser));
-        when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
+        when(userRepository.updateProfile(anyLong(), anyString(), anyString(), any())).thenReturn(1);
 
         UpdateUserDto updateDto = new UpdateUserDto();
         updateDto.setUsername("new.username");
@@ -122,6 +146,28 @@ class UserServiceTest {
         assertEquals("New Name", updated.getDisplayName());
         assertEquals(mockUser.getEmail(), updated.getEmail());
         assertTrue(updated.getRoles().contains("EMPLOYEE"));
+        // Only the profile columns are written, never the whole loaded entity with its last_login
+        verify(userRepository).updateProfile(eq(mockUser.getId()), eq("new.username"), eq("New Name"), any());
+        verify(userRepository, never()).save(any());
+        // The cached principal's version is stale now
+        verify(principalCache, times(1)).invalidateAfterCommit(List.of("abc123"));
+    }
+
+    @Test
+    @DisplayName("updateCurrentUser writes nothing when the profile is unchanged")
+    void updateCurrentUser_unchangedProfile_writesNothing() {
+        when(authentication.getName()).thenReturn("abc123");
+        when(userRepository.findByCognitoSub("abc123")).thenReturn(Optional.of(mockUser));
+
+        UpdateUserDto updateDto = new UpdateUserDto();
+        updateDto.setUsername(mockUser.getUsername());
+
+        UserDto updated = userService.updateCurrentUser(authentication, updateDto);
+
+        assertEquals(mockUser.getUsername(), updated.getUsername());
+        verify(userRepository, never()).updateProfile(any(), any(), any(), any());
+        verify(userRepository, never()).save(any());
+        verify(principalCache, never()).invalidateAfterCommit(any());
     }
 
     @Test
@@ -141,35 +187,58 @@ class UserServiceTest {
     @Test
     @DisplayName("getUsers returns paged results without query")
     void getUsers_returnsPagedResultsWithoutQuery() {
-        Page<User> page = new PageImpl<>(List.of(mockUser));
-        when(userRepository.findAll(PageRequest.of(0, 10))).thenReturn(page);
+        Page<UserDto> page = new PageImpl<>(List.of(mockUserDto));
+        when(userQueryRepository.findPage(PageRequest.of(0, 10))).thenReturn(page);
 
         Page<UserDto> result = userService.getUsers(0, 10, null);
 
         assertEquals(1, result.getTotalElements());
         assertEquals(mockUser.getUsername(), result.getContent().get(0).getUsername());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     @DisplayName("getUsers returns paged results with query")
     void getUsers_returnsPagedResultsWithQuery() {
-        Page<User> page = new PageImpl<>(List.of(mockUser));
-        when(userRepository.findByUsernameContainingIgnoreCaseOrEmailContainingIgnoreCase("john", "john",
-                PageRequest.of(0, 10)))
+        Page<UserDto> page = new PageImpl<>(List.of(mockUserDto));
+        when(userQueryRepository.findPageContaining("%john%", PageRequest.of(0, 10))).thenReturn(page);
+
+        Page<UserDto> result = userService.getUsers(0, 10, "John");
+
+        assertEquals(1, result.getTotalElements());
+        assertEquals(mockUser.getUsername(), result.getContent().get(0).getUsername());
+    }
+
+    @Test
+    @DisplayName("getUsers in trigram mode searches by similarity with an escaped pattern")
+    void getUsers_trigramMode_searchesBySimilarity() {
+        Page<UserDto> page = new PageImpl<>(List.of(mockUserDto));
+        when(userQueryRepository.findPageBySimilarity("john_d%", "%john\\_d\\%%", PageRequest.of(0, 10)))
                 .thenReturn(page);
 
-        Page<UserDto> result = userService.getUsers(0, 10, "john");
+        Page<UserDto> result = userService.getUsers(0, 10, "  John_D% ", UserService.SearchMode.TRIGRAM);
 
         assertEquals(1, result.getTotalElements());
         assertEquals(mockUser.getUsername(), result.getContent().get(0).getUsername());
     }
 
+    @Test
+    @DisplayName("getUsers in trigram mode ignores queries shorter than the minimum length")
+    void getUsers_trigramMode_shortQueryReturnsEmptyPage() {
+        Page<UserDto> result = userService.getUsers(0, 10, "jo", UserService.SearchMode.TRIGRAM);
+
+        assertEquals(0, result.getTotalElements());
+        verifyNoInteractions(userQueryRepository);
+    }
+
     // ==================== getUserDetails ====================
     @Test
     @DisplayName("getUserDetails returns UserDetailDto with audit logs")
     void getUserDetails_returnsUserDetailDtoWithAuditLogs() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(auditLogRepository.findByUserId(1L)).thenReturn(List.of(mockAuditLog));
+        when(auditLogQueryService.search(new AuditLogFilter(1L, null, null, null, null), null, 20))
+                .thenReturn(new AuditLogPageDto(List.of(mockAuditLog), null));
+        when(auditLogQueryService.countByEventType(1L)).thenReturn(Map.of("LOGIN", 1L));
 
         UserDetailDto dto = userService.getUserDetails(1L);
 
@@ -177,6 +246,21 @@ class UserServiceTest {
         assertEquals(mockUser.getUsername(), dto.getUsername());
         assertEquals(1, dto.getAuditLogs().size());
         assertEquals("LOGIN", dto.getAuditLogs().get(0).getEventType());
+        assertEquals(Map.of("LOGIN", 1L), dto.getActivitySummary());
+        assertNull(dto.getAuditLogsNext());
+    }
+
+    @Test
+    @DisplayName("getUserDetails links to the audit search for older entries")
+    void getUserDetails_moreEntries_linksToAuditSearch() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
+        when(auditLogQueryService.search(any(), isNull(), eq(20)))
+                .thenReturn(new AuditLogPageDto(List.of(mockAuditLog), "Y3Vyc29y"));
+        when(auditLogQueryService.countByEventType(1L)).thenReturn(Map.of("LOGIN", 25L));
+
+        UserDetailDto dto = userService.getUserDetails(1L);
+
+        assertEquals("/api/v1/admin/audit-log/search?userId=1&cursor=Y3Vyc29y", dto.getAuditLogsNext());
     }
 
     @Test
@@ -197,9 +281,10 @@ class UserServiceTest {
         roleAdmin.setName("ADMIN");
 
         when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(roleRepository.findByName("ADMIN")).thenReturn(Optional.of(roleAdmin));
+        when(roleRegistry.resolve(Set.of("ADMIN"))).thenReturn(Set.of(roleAdmin));
         when(userRepository.save(any(User.class))).thenAnswer(i -> i.getArgument(0));
-        when(auditLogRepository.findByUserId(1L)).thenReturn(List.of(mockAuditLog));
+        when(auditLogQueryService.search(any(), isNull(), eq(20)))
+                .thenReturn(new AuditLogPageDto(List.of(mockAuditLog), null));
 
         Set<String> newRoles = Set.of("ADMIN");
 
@@ -207,14 +292,17 @@ class UserServiceTest {
 
         assertEquals(1, dto.getRoles().size());
         assertTrue(dto.getRoles().contains("ADMIN"));
-        verify(auditLogService, times(1)).record(eq(1L), eq("ROLE_UPDATE"), anyString(), isNull());
+        // Written before the details are read back, so they include it
+        verify(auditLogService, times(1)).recordNow(eq(1L), eq("ROLE_UPDATE"), anyString(), isNull());
+        verify(auditLogService, never()).record(any(), any(), any(), any());
+        verify(principalCache, times(1)).invalidateAfterCommit(List.of("abc123"));
     }
 
     @Test
     @DisplayName("updateUserRoles throws exception if role not found")
     void updateUserRoles_throwsIfRoleNotFound() {
         when(userRepository.findById(1L)).thenReturn(Optional.of(mockUser));
-        when(roleRepository.findByName("UNKNOWN")).thenReturn(Optional.empty());
+        when(roleRegistry.resolve(Set.of("UNKNOWN"))).thenThrow(new RuntimeException("Role not found: UNKNOWN"));
 
         RuntimeException ex = assertThrows(RuntimeException.class,
                 () -> userService.updateUserRoles(1L, Set.of("UNKNOWN")));
@@ -0,0 +1,119 @@
+package com.eyepax.authservice.service;
+
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.model.Role;
+import com.eyepax.authservice.repository.UserUpsertRepository;
+import com.eyepax.authservice.security.PrincipalCache;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Fires many parallel first logins for the same sub against a real
+ * PostgreSQL with the Flyway schema. Skipped when Docker isn't available,
+ * except under the postgres Maven profile.
+ */
+@Tag("postgres")
+@Testcontainers(disabledWithoutDocker = true)
+class UserSyncServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+
+    @Container
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static TransactionTemplate transactionTemplate;
+    private static UserSyncService userSyncService;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(POSTGRES.getJdbcUrl());
+        dataSource.setUsername(POSTGRES.getUsername());
+        dataSource.setPassword(POSTGRES.getPassword());
+        dataSource.setMaximumPoolSize(THREADS);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO roles (name) VALUES ('USER'), ('Employee')");
+        Long userRoleId = jdbcTemplate.queryForObject("SELECT id FROM roles WHERE name = 'USER'", Long.class);
+
+        RoleRegistry roleRegistry = mock(RoleRegistry.class);
+        when(roleRegistry.find("USER")).thenReturn(Optional.of(new Role(userRoleId, "USER", null, null)));
+        // Same transaction boundary the @Transactional proxy gives the real bean
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        userSyncService = new UserSyncService(roleRegistry, new UserUpsertRepository(jdbcTemplate),
+                mock(PrincipalCache.class), new SimpleMeterRegistry(), 500, 5000);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testParallelFirstLogins_CreateExactlyOneUser() throws Exception {
+        List<UserDto> results = firstLoginsInParallel(i -> i % 2 == 0
+                ? userSyncService.findOrCreate("sub-race", "race@example.com", "race@example.com", "Race")
+                : userSyncService.findOrCreateFromCognito("sub-race", "race@example.com", "race@example.com", "Race"));
+
+        Long id = results.get(0).getId();
+        for (UserDto user : results) {
+            assertEquals(id, user.getId());
+            assertEquals(Set.of("Employee", "USER"), user.getRoles());
+        }
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM users WHERE cognito_sub = 'sub-race'", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM user_roles WHERE user_id = ?", Integer.class, id));
+    }
+
+    private List<UserDto> firstLoginsInParallel(IntFunction<UserDto> login) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<UserDto>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return transactionTemplate.execute(status -> login.apply(n));
+                }));
+            }
+            start.countDown();
+            List<UserDto> results = new ArrayList<>();
+            for (Future<UserDto> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,109 +1,161 @@
 package com.eyepax.authservice.service;
 
+import com.eyepax.authservice.dto.UserDto;
+import com.eyepax.authservice.dto.UserSyncDto;
+import com.eyepax.authservice.dto.UserSyncResultDto;
 import com.eyepax.authservice.model.Role;
-import com.eyepax.authservice.model.User;
-import com.eyepax.authservice.repository.RoleRepository;
-import com.eyepax.authservice.repository.UserRepository;
+import com.eyepax.authservice.repository.UserUpsertRepository;
+import com.eyepax.authservice.repository.UserUpsertRepository.ProvisionedUser;
+import com.eyepax.authservice.repository.UserUpsertRepository.UpsertedUser;
+import com.eyepax.authservice.security.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import java.util.HashSet;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 public class UserSyncServiceTest {
 
-    private UserRepository userRepository;
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
+    private UserUpsertRepository userUpsertRepository;
+    private PrincipalCache principalCache;
+    private SimpleMeterRegistry meterRegistry;
     private UserSyncService userSyncService;
 
     @BeforeEach
     void setUp() {
-        userRepository = mock(UserRepository.class);
-        roleRepository = mock(RoleRepository.class);
-        userSyncService = new UserSyncService(userRepository, roleRepository);
+        roleRegistry = mock(RoleRegistry.class);
+        userUpsertRepository = mock(UserUpsertRepository.class);
+        principalCache = mock(PrincipalCache.class);
+        meterRegistry = new SimpleMeterRegistry();
+        userSyncService = new UserSyncService(roleRegistry, userUpsertRepository, principalCache, meterRegistry, 2,
+                5);
     }
 
     @Test
-    void testFindOrCreateFromCognito_ExistingUser_UpdatesFields() {
-        String cognitoSub = "abc123";
-        User existingUser = new User();
-        existingUser.setCognitoSub(cognitoSub);
-        existingUser.setEmail("old@example.com");
-        existingUser.setUsername("olduser");
-        existingUser.setDisplayName("Old Name");
-        existingUser.setRoles(new HashSet<>());
-
-        when(userRepository.findByCognitoSub(cognitoSub)).thenReturn(Optional.of(existingUser));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        String newEmail = "new@example.com";
-        String newDisplayName = "New Name";
-
-        User result = userSyncService.findOrCreateFromCognito(cognitoSub, newEmail, "olduser", newDisplayName);
-
-        assertEquals(newEmail, result.getEmail());
-        assertEquals(newDisplayName, result.getDisplayName());
-        assertEquals("olduser", result.getUsername());
-        assertNotNull(result.getLastLogin());
-        assertNotNull(result.getUpdatedAt());
-
-        verify(userRepository, times(1)).save(existingUser);
+    void testFindOrCreateFromCognito_ExistingUser_RefreshesProfileInOneStatement() {
+        when(userUpsertRepository.findOrCreate(any(), eq(true), any())).thenReturn(Optional.of(
+                new ProvisionedUser(5L, "olduser", "new@example.com", "New Name", false, Set.of("Employee"), 4L)));
+
+        UserDto result = userSyncService.findOrCreateFromCognito("abc123", "new@example.com", "olduser", "New Name");
+
+        assertEquals(new UserDto(5L, "olduser", "new@example.com", "New Name", Set.of("Employee")), result);
+        ArgumentCaptor<UserSyncDto> profile = ArgumentCaptor.forClass(UserSyncDto.class);
+        verify(userUpsertRepository, times(1)).findOrCreate(profile.capture(), eq(true), any());
+        assertEquals(new UserSyncDto("abc123", "new@example.com", "olduser", "New Name"), profile.getValue());
+        verify(userUpsertRepository, never()).grantRole(any(), any());
+        assertEquals(4L, result.getVersion());
+        verify(principalCache).invalidateAfterCommit(List.of("abc123"));
     }
 
     @Test
-    void testFindOrCreateFromCognito_NewUser_CreatesWithDefaultRole() {
-        String cognitoSub = "newuser123";
-        String email = "test@example.com";
-        String username = "testuser";
-        String displayName = "Test User";
+    void testFindOrCreate_NewUser_GrantsDefaultRole() {
+        when(userUpsertRepository.findOrCreate(any(), eq(false), any())).thenReturn(Optional.of(
+                new ProvisionedUser(6L, "testuser", "test@example.com", "Test User", true, Set.of(), 0L)));
+        when(roleRegistry.find("USER")).thenReturn(Optional.of(new Role(1L, "USER", null, null)));
+        when(userUpsertRepository.grantRole(6L, 1L)).thenReturn(Set.of("Employee", "USER"));
+        when(userUpsertRepository.findVersion(6L)).thenReturn(2L);
+
+        UserDto result = userSyncService.findOrCreate("newuser123", "test@example.com", "testuser", "Test User");
+
+        assertEquals(6L, result.getId());
+        assertEquals(Set.of("Employee", "USER"), result.getRoles());
+        // Version after the role grants, not the one the insert returned
+        assertEquals(2L, result.getVersion());
+        assertEquals(1, meterRegistry.get("auth.user.created").tag("path", "bearer").counter().count());
+        assertEquals(1, meterRegistry.get("auth.user.provision").tag("path", "bearer").tag("result", "created")
+                .timer().count());
+    }
 
-        when(userRepository.findByCognitoSub(cognitoSub)).thenReturn(Optional.empty());
+    @Test
+    void testFindOrCreate_NewUser_NoDefaultRole_ReturnsTriggerRoles() {
+        when(userUpsertRepository.findOrCreate(any(), eq(false), any())).thenReturn(Optional.of(
+                new ProvisionedUser(8L, "noroleuser", "noRole@example.com", null, true, Set.of(), 0L)));
+        when(roleRegistry.find("USER")).thenReturn(Optional.empty());
+        when(userUpsertRepository.findRoleNames(List.of(8L))).thenReturn(Map.of(8L, Set.of("Employee")));
 
-        Role userRole = new Role();
-        userRole.setId(1L);
-        userRole.setName("USER");
+        UserDto result = userSyncService.findOrCreate("newuser456", "noRole@example.com", "noroleuser", null);
 
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(userRole));
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        assertEquals(Set.of("Employee"), result.getRoles());
+        verify(userUpsertRepository, never()).grantRole(any(), any());
+    }
 
-        User result = userSyncService.findOrCreateFromCognito(cognitoSub, email, username, displayName);
+    @Test
+    void testFindOrCreate_LostInsertRace_RetriesAndFindsWinner() {
+        when(userUpsertRepository.findOrCreate(any(), eq(false), any()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(new ProvisionedUser(9L, "u", "u@example.com", null, false, Set.of("USER"), 1L)));
 
-        assertEquals(cognitoSub, result.getCognitoSub());
-        assertEquals(email, result.getEmail());
-        assertEquals(username, result.getUsername());
-        assertEquals(displayName, result.getDisplayName());
-        assertEquals("ACTIVE", result.getStatus());
-        assertNotNull(result.getCreatedAt());
-        assertNotNull(result.getLastLogin());
-        assertTrue(result.getRoles().stream().anyMatch(r -> r.getName().equals("USER")));
+        UserDto result = userSyncService.findOrCreate("racy", "u@example.com", "u", null);
 
-        verify(userRepository, times(1)).save(result);
+        assertEquals(9L, result.getId());
+        verify(userUpsertRepository, times(2)).findOrCreate(any(), eq(false), any());
     }
 
     @Test
-    void testFindOrCreateFromCognito_NewUser_NoDefaultRole() {
-        String cognitoSub = "newuser456";
-        String email = "noRole@example.com";
-        String username = "noroleuser";
-        String displayName = "No Role User";
-
-        when(userRepository.findByCognitoSub(cognitoSub)).thenReturn(Optional.empty());
-        when(roleRepository.findByName("USER")).thenReturn(Optional.empty());
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
-
-        User result = userSyncService.findOrCreateFromCognito(cognitoSub, email, username, displayName);
-
-        assertEquals(cognitoSub, result.getCognitoSub());
-        assertEquals(email, result.getEmail());
-        assertEquals(username, result.getUsername());
-        assertEquals(displayName, result.getDisplayName());
-        assertEquals("ACTIVE", result.getStatus());
-        assertNotNull(result.getCreatedAt());
-        assertNotNull(result.getLastLogin());
-        assertTrue(result.getRoles().isEmpty());
-
-        verify(userRepository, times(1)).save(result);
+    @SuppressWarnings("unchecked")
+    void testSyncAll_UpsertsInBatchesAndAssignsDefaultRoleToNewUsersOnly() {
+        when(roleRegistry.find("USER")).thenReturn(Optional.of(new Role(1L, "USER", null, null)));
+        when(userUpsertRepository.upsert(anyList(), isNull(), any())).thenAnswer(inv -> {
+            List<UserSyncDto> chunk = inv.getArgument(0);
+            return chunk.stream()
+                    .map(u -> new UpsertedUser((long) u.getSub().hashCode(), u.getSub(), !u.getSub().equals("b")))
+                    .toList();
+        });
+        when(userUpsertRepository.findRoleNames(anyCollection())).thenReturn(Map.of(
+                (long) "a".hashCode(), Set.of("Employee", "USER")));
+
+        List<UserSyncResultDto> results = userSyncService.syncAll(List.of(
+                new UserSyncDto("a", "a@example.com", "a", "A"),
+                new UserSyncDto("b", "b@example.com", "b", "B"),
+                new UserSyncDto("c", "c@example.com", "c", "C"),
+                new UserSyncDto("a", "a2@example.com", "a", "A2")));
+
+        // Duplicate sub collapses to its last entry, so three users in batches of two
+        verify(userUpsertRepository, times(2)).upsert(anyList(), isNull(), any());
+        verify(userUpsertRepository).assignRole(List.of((long) "c".hashCode()), 1L);
+        verify(userUpsertRepository).assignRole(List.of((long) "a".hashCode()), 1L);
+        verify(userUpsertRepository, times(1)).findRoleNames(anyCollection());
+
+        assertEquals(List.of("b", "c", "a"), results.stream().map(UserSyncResultDto::getSub).toList());
+        assertFalse(results.get(0).isCreated());
+        assertEquals(Set.of("Employee", "USER"), results.get(2).getRoles());
+        assertEquals(Set.of(), results.get(1).getRoles());
+        assertEquals(2, meterRegistry.get("auth.user.created").tag("path", "sync").counter().count());
+        assertEquals(3, meterRegistry.get("auth.sync.batch.users").summary().totalAmount());
+        verify(principalCache).invalidateAfterCommit(argThat(subs -> Set.copyOf(subs).equals(Set.of("a", "b", "c"))));
+    }
+
+    @Test
+    void testSyncAll_RejectsInvalidOrOversizedRequests() {
+        assertThrows(ResponseStatusException.class,
+                () -> userSyncService.syncAll(List.of(new UserSyncDto("a", null, "a", "A"))));
+        assertThrows(ResponseStatusException.class, () -> userSyncService.syncAll(List.of(
+                new UserSyncDto("1", "e", null, null), new UserSyncDto("2", "e", null, null),
+                new UserSyncDto("3", "e", null, null), new UserSyncDto("4", "e", null, null),
+                new UserSyncDto("5", "e", null, null), new UserSyncDto("6", "e", null, null))));
+
+        verifyNoInteractions(userUpsertRepository);
+    }
+
+    @Test
+    void testSyncAll_UsernameClash_ReportsConflict() {
+        when(userUpsertRepository.upsert(anyList(), isNull(), any()))
+                .thenThrow(new DuplicateKeyException("users_username_key"));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> userSyncService.syncAll(List.of(new UserSyncDto("a", "a@example.com", "taken", null))));
+
+        assertEquals(409, ex.getStatusCode().value());
     }
 }